@@ -0,0 +1,35 @@
+package study.datajpa;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 벤치마크용 애플리케이션 컨텍스트
+ *  - 내장 H2(mem) 를 사용하고, 웹 서버와 P6Spy/SQL 로그는 끈다.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String name, String... properties) {
+        List<String> defaults = new ArrayList<>(Arrays.asList(
+                "spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "decorator.datasource.enabled=false",
+                "logging.level.org.hibernate.SQL=warn",
+                "logging.level.p6spy=warn",
+                "datajpa.sql-stats.report-interval-ms=3600000"));
+        defaults.addAll(Arrays.asList(properties));
+
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(defaults.toArray(new String[0]))
+                .run();
+    }
+}
@@ -0,0 +1,106 @@
+package study.datajpa.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import study.datajpa.BenchmarkApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 등록자/수정자 식별자 - 이전 방식(저장마다 UUID.randomUUID()) vs RequestAuditorAware
+ *
+ * auditor: AuditorAware 호출만 측정
+ * saveMembers: 트랜잭션마다 회원 batchSize 건 저장 - 감사 필드 2개(createdBy, lastModifiedBy)를 채우는 쓰기 처리량
+ *
+ * 호출마다 새 요청(MockHttpServletRequest)을 바인딩하므로 request 모드는 요청 단위 익명 id 를 만들고 캐시하는 비용을 측정한다.
+ * (요청이 없으면 systemAuditor 를 바로 반환하므로 비교가 되지 않는다)
+ *
+ * ./gradlew jmh -Pjmh.includes=AuditorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class AuditorBenchmark {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    @Param({"random-uuid", "request"})
+    String mode;
+
+    @Param({"50"})
+    int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private AuditorAware<?> auditorAware;
+    private MemberRepository memberRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("auditor-" + mode, "datajpa.auditor.mode=" + mode);
+        auditorAware = context.getBean(AuditorAware.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 요청 컨텍스트는 스레드 단위이므로 스레드별 상태로 호출마다 바인딩/해제한다.
+     */
+    @State(Scope.Thread)
+    public static class RequestScope {
+
+        @Setup(Level.Invocation)
+        public void bind() {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        }
+
+        @TearDown(Level.Invocation)
+        public void reset() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Benchmark
+    public Optional<?> auditor(RequestScope request) {
+        return auditorAware.getCurrentAuditor();
+    }
+
+    @Benchmark
+    public void saveMembers(RequestScope request) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> members = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                members.add(new Member("member" + SEQUENCE.incrementAndGet(), i));
+            }
+            memberRepository.saveAll(members);
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.config.P6spy;
+
+import com.p6spy.engine.logging.Category;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쿼리 스레드가 SQL 로그 한 건에 쓰는 비용 비교
+ *  - prettyFormatter: 기존 동기 방식 (P6spyPrettySqlFormatter 를 쿼리 스레드에서 실행)
+ *  - ringBufferOffer: 비동기 방식 (원본 값만 링 버퍼에 넣음, 포맷은 백그라운드 스레드)
+ *
+ * 생산자 4개가 소비자 1개보다 빠르면 offer 는 대부분 버려지는 경로(카운터 증가)만 측정하게 된다.
+ * OfferCounters 로 offered/dropped 를 함께 출력하므로, dropped 가 0 에 가까울 때의 결과만 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class SqlLoggingBenchmark {
+
+    private static final String SQL = "select member0_.member_id as member_i1_1_, member0_.created_date as created_2_1_," +
+            " member0_.last_modified_date as last_mod3_1_, member0_.created_by as created_4_1_," +
+            " member0_.last_modified_by as last_mod5_1_, member0_.age as age6_1_, member0_.team_id as team_id8_1_," +
+            " member0_.username as username7_1_ from member member0_ where member0_.username='member1'";
+
+    private P6spyPrettySqlFormatter formatter;
+    private SqlLogRingBuffer ringBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        formatter = new P6spyPrettySqlFormatter();
+        //소비 스레드는 포맷까지만 하고 출력하지 않는다.
+        ringBuffer = new SqlLogRingBuffer(8192, (connectionId, now, elapsed, category, prepared, sql, url) ->
+                formatter.formatMessage(connectionId, now, elapsed, category.toString(), prepared, sql, url));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ringBuffer.shutdown();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OfferCounters {
+        public long offered;
+        public long dropped;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            offered = 0;
+            dropped = 0;
+        }
+    }
+
+    @Benchmark
+    public String prettyFormatter() {
+        return formatter.formatMessage(1, "1660000000000", 3, Category.STATEMENT.getName(), SQL, SQL, "jdbc:h2:mem:datajpa");
+    }
+
+    @Benchmark
+    public void ringBufferOffer(OfferCounters counters) {
+        if (ringBuffer.offer(1, "1660000000000", 3, Category.STATEMENT, SQL, SQL, "jdbc:h2:mem:datajpa")) {
+            counters.offered++;
+        } else {
+            counters.dropped++;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.BenchmarkApplication;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /members2 한 번의 요청 비용 - 엔티티 조회 후 변환 vs DTO 직접 조회
+ *
+ * 컨트롤러와 같이 트랜잭션 없이 리포지토리를 호출한다.
+ * 요청당 할당량은 gc.alloc.rate.norm 으로 비교한다. (build.gradle 의 profilers = ['gc'])
+ *
+ * ./gradlew jmh -Pjmh.includes=MemberDtoPagingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberDtoPagingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("dto-paging");
+        memberRepository = context.getBean(MemberRepository.class);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            List<Team> teamList = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                teamList.add(new Team("team" + i));
+            }
+            teamRepository.saveAll(teamList);
+
+            List<Member> memberList = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                memberList.add(new Member("member" + i, i % 100, teamList.get(i % 10)));
+            }
+            memberRepository.saveAll(memberList);
+        });
+
+        pageable = PageRequest.of(1, pageSize, Sort.by("id"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 기준값 - 변경 전 /members2 (엔티티 + 스냅샷 생성 후 MemberDto 로 변환, teamName 없음)
+     */
+    @Benchmark
+    public Page<MemberDto> entityPage() {
+        return memberRepository.findAll(pageable, CountStrategy.EXACT).map(MemberDto::new);
+    }
+
+    @Benchmark
+    public Page<MemberDto> dtoPage() {
+        return memberRepository.findMemberDtoPage(pageable, CountStrategy.EXACT);
+    }
+}
@@ -0,0 +1,128 @@
+package study.datajpa.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.BenchmarkApplication;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 + 팀 이름 조회 방식별 처리량/할당량 비교
+ *
+ * 엔티티 조회는 team.getName() 까지 호출하여 지연 로딩 비용을 포함시킨다.
+ * 할당량(gc.alloc.rate.norm)은 build.gradle 의 profilers = ['gc'] 로 함께 측정된다.
+ *
+ * ./gradlew jmh -Pjmh.includes=MemberFetchStrategyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberFetchStrategyBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int members;
+
+    @Param({"10"})
+    int teams;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("fetch");
+        memberRepository = context.getBean(MemberRepository.class);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Team> teamList = new ArrayList<>();
+            for (int i = 0; i < teams; i++) {
+                teamList.add(new Team("team" + i));
+            }
+            teamRepository.saveAll(teamList);
+
+            List<Member> memberList = new ArrayList<>();
+            for (int i = 0; i < members; i++) {
+                memberList.add(new Member("member" + i, i % 100, teamList.get(i % teams)));
+            }
+            memberRepository.saveAll(memberList);
+        });
+
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 기준값 - fetch join 없이 조회 후 팀을 지연 로딩 (N + 1)
+     */
+    @Benchmark
+    public void lazyLoading(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> consumeTeamNames(memberRepository.findMemberCustom(), blackhole));
+    }
+
+    @Benchmark
+    public void fetchJoin(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> consumeTeamNames(memberRepository.findMemberFetchJoin(), blackhole));
+    }
+
+    @Benchmark
+    public void namedEntityGraph(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> consumeTeamNames(memberRepository.findMemberEntityGraph(), blackhole));
+    }
+
+    @Benchmark
+    public void findAllEntityGraph(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> consumeTeamNames(memberRepository.findAll(), blackhole));
+    }
+
+    @Benchmark
+    public void dtoProjection(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> {
+            for (MemberDto dto : memberRepository.findMemberDto()) {
+                blackhole.consume(dto.getTeamName());
+            }
+        });
+    }
+
+    /**
+     * 단건 조회 - 중첩 인터페이스 프로젝션 (team 은 left outer join 으로 엔티티 전체를 조회)
+     */
+    @Benchmark
+    public void nestedInterfaceProjection(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> {
+            for (NestedClosedProjection projection : memberRepository.findProjectionByUsername("member1", NestedClosedProjection.class)) {
+                blackhole.consume(projection.getTeam().getName());
+            }
+        });
+    }
+
+    private static void consumeTeamNames(List<Member> result, Blackhole blackhole) {
+        for (Member member : result) {
+            blackhole.consume(member.getTeam().getName());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package study.datajpa.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.BenchmarkApplication;
+import study.datajpa.entity.Member;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 회원을 동시에 변경할 때의 처리량 - 비관적 락(select for update) vs 낙관적 락(@Version + 재시도)
+ *
+ * rows 가 작을수록 경합이 심하다. (1 = 모든 스레드가 한 행을 변경)
+ * work 는 엔티티를 조회한 뒤 커밋 전까지 수행하는 비즈니스 로직의 양(Blackhole.consumeCPU 토큰)이다.
+ * 비관적 락은 그동안 행 락을 잡고 있고, 낙관적 락은 락 없이 진행한 뒤 커밋 시점에만 충돌을 확인한다.
+ *
+ * claim, bulk 는 변경 피드 순번(ChangeTracker)을 기록하는 쓰기의 처리량이다.
+ *  - claim: 선점(claimBatch, SKIP LOCKED) - 선점만 바뀐 수정은 순번을 발급받지 않는다.
+ *  - bulk: 임의의 member_id 구간(BULK_RANGE 건) bulkAgePlus - 커밋 직전에 순번을 발급받고 change_seq 를 기록한다.
+ * 순번 발급기 행은 발급하는 짧은 트랜잭션 동안만 잠기므로, 서로 다른 행을 변경하는 쓰기는 커밋 때 서로를 기다리지 않아야 한다.
+ *
+ * ./gradlew jmh -Pjmh.includes=MemberLockContentionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class MemberLockContentionBenchmark {
+
+    private static final int CLAIM_SIZE = 10;
+    private static final int BULK_RANGE = 16;
+
+    @Param({"1", "16", "256"})
+    int rows;
+
+    @Param({"0", "10000"})
+    int work;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private OptimisticRetryExecutor retryExecutor;
+    private TransactionTemplate transactionTemplate;
+    private List<Long> memberIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("lock-contention", "datajpa.optimistic.max-attempts=1000");
+        memberRepository = context.getBean(MemberRepository.class);
+        retryExecutor = context.getBean(OptimisticRetryExecutor.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            members.add(new Member("member" + i, 0));
+        }
+        memberIds = new ArrayList<>();
+        memberRepository.saveAll(members).forEach(member -> memberIds.add(member.getId()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        OptimisticRetryExecutor.Report report = retryExecutor.report();
+        System.out.println("optimistic attempts=" + report.getAttempts() + ", conflicts=" + report.getConflicts()
+                + ", conflictRate=" + report.getConflictRate());
+        context.close();
+    }
+
+    @Benchmark
+    public void pessimistic() {
+        String username = randomUsername();
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = memberRepository.findLockByUsername(username).get(0);
+            Blackhole.consumeCPU(work);
+            member.setAge(member.getAge() + 1);
+        });
+    }
+
+    @Benchmark
+    public void optimistic() {
+        String username = randomUsername();
+        retryExecutor.execute(() -> {
+            Member member = memberRepository.findListByUsername(username).get(0);
+            Blackhole.consumeCPU(work);
+            member.setAge(member.getAge() + 1);
+            return member;
+        });
+    }
+
+    @Benchmark
+    public int claim() {
+        //lease 0 - 선점된 회원도 바로 만료되므로 행이 부족해지지 않는다.
+        return memberRepository.claimBatch(Thread.currentThread().getName(), CLAIM_SIZE, Duration.ZERO).size();
+    }
+
+    @Benchmark
+    public int bulk() {
+        int from = ThreadLocalRandom.current().nextInt(rows);
+        int to = Math.min(from + BULK_RANGE, rows) - 1;
+        return memberRepository.bulkAgePlus(0, memberIds.get(from), memberIds.get(to));
+    }
+
+    private String randomUsername() {
+        return "member" + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,102 @@
+package study.datajpa.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.BenchmarkApplication;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * offset 페이징 vs 키셋 페이징 - 같은 위치의 페이지를 조회하는 비용
+ *
+ * 회원은 JDBC 배치로 직접 적재한다. (100만 건 기준 JPA saveAll 보다 훨씬 빠름)
+ * position 은 전체 중 조회할 페이지의 위치(0 = 첫 페이지, 1 = 마지막 페이지)
+ *
+ * ./gradlew jmh -Pjmh.includes=MemberPagingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberPagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000000"})
+    int members;
+
+    @Param({"0", "0.5", "0.999"})
+    double position;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private EntityManager em;
+    private TransactionTemplate readOnly;
+
+    private int offset;
+    private MemberCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("paging");
+        memberRepository = context.getBean(MemberRepository.class);
+        em = context.getBean(EntityManager.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= members; i++) {
+            rows.add(new Object[]{(long) i, "member" + i, i % 100});
+            if (rows.size() == 10_000 || i == members) {
+                jdbcTemplate.batchUpdate("insert into member (member_id, username, age, version) values (?, ?, ?, 0)", rows);
+                rows.clear();
+            }
+        }
+
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        offset = (int) Math.min((long) (members * position), members - PAGE_SIZE);
+        //offset 페이지 바로 앞 행을 커서로 사용하면 두 방식이 같은 페이지를 조회한다.
+        cursor = offset == 0 ? null : readOnly.execute(status -> MemberCursor.after(
+                offsetPage(offset - 1, 1).get(0)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> offset() {
+        return readOnly.execute(status -> offsetPage(offset, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public CursorPage<Member> keyset() {
+        return readOnly.execute(status -> memberRepository.findByCursor(cursor, PAGE_SIZE));
+    }
+
+    private List<Member> offsetPage(int firstResult, int maxResults) {
+        return em.createQuery("select m from Member m order by m.age asc, m.id asc", Member.class)
+                .setFirstResult(firstResult)
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+}
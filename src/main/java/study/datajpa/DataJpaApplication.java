@@ -1,16 +1,20 @@
 package study.datajpa;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.datajpa.config.RequestAuditorAware;
 
 import java.util.Optional;
 import java.util.UUID;
 
 @EnableJpaAuditing
+@EnableScheduling
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -18,8 +22,18 @@ public class DataJpaApplication {
 		SpringApplication.run(DataJpaApplication.class, args);
 	}
 
+	/**
+	 * datajpa.auditor.mode
+	 *  - request: 인증 사용자/요청 헤더 기반, 요청 단위 캐시 (RequestAuditorAware)
+	 *    요청 헤더는 datajpa.auditor.trust-header 가 true 일 때만 사용한다. (게이트웨이가 헤더를 설정하는 경우)
+	 *  - random-uuid: 저장할 때마다 UUID.randomUUID() (이전 방식, 비교용)
+	 */
 	@Bean
-	public AuditorAware<String> auditorProvider() {
+	public AuditorAware<String> auditorProvider(@Value("${datajpa.auditor.mode:request}") String mode,
+												@Value("${datajpa.auditor.header:X-User-Id}") String header,
+												@Value("${datajpa.auditor.trust-header:false}") boolean trustHeader,
+												@Value("${datajpa.auditor.system:system}") String systemAuditor,
+												@Value("${datajpa.auditor.compact:true}") boolean compact) {
 //		return new AuditorAware<String>() {
 //			@Override
 //			public Optional<String> getCurrentAuditor() {
@@ -27,6 +41,9 @@ public class DataJpaApplication {
 //			}
 //		};
 
-		return () -> Optional.of(UUID.randomUUID().toString());
+		if ("random-uuid".equalsIgnoreCase(mode)) {
+			return () -> Optional.of(UUID.randomUUID().toString());
+		}
+		return new RequestAuditorAware(header, trustHeader, systemAuditor, compact);
 	}
 }
@@ -0,0 +1,137 @@
+package study.datajpa.config.P6spy;
+
+import com.p6spy.engine.logging.Category;
+import com.p6spy.engine.spy.P6SpyOptions;
+import com.p6spy.engine.spy.appender.P6Logger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 비동기 P6Spy appender
+ *
+ * 기본 Slf4JLogger 는 쿼리 스레드에서 MessageFormattingStrategy(P6spyPrettySqlFormatter)를 실행한다.
+ * 이 appender 는 샘플링을 통과한 로그의 원본 값만 SqlLogRingBuffer 에 넣고, 포맷과 출력은 백그라운드 스레드에서 한다.
+ *
+ * 샘플링
+ *  - sampleRate: N 이면 평균 N 건 중 1 건 기록 (1 = 전부, 0 = 샘플링으로는 기록하지 않음)
+ *  - slowThresholdMs: 0 이상이면 이 시간 이상 걸린 SQL 은 샘플링과 관계없이 기록
+ *  - ERROR 카테고리는 항상 기록
+ *
+ * P6Spy 가 클래스 이름으로 인스턴스를 만들고 설정이 바뀔 때마다 다시 만들기 때문에,
+ * 설정과 버퍼(소비 스레드)는 static 으로 하나만 두고 P6spyLogMessageFormatConfiguration 이 시작/종료한다.
+ * 버퍼가 없으면(시작 전, 종료 후) 쿼리 스레드에서 바로 출력한다.
+ */
+public class AsyncP6spyLogger implements P6Logger {
+
+    private static final Logger log = LoggerFactory.getLogger("p6spy");
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+    private static volatile int sampleRate = 1;
+    private static volatile long slowThresholdMs = -1;
+    private static volatile SqlLogRingBuffer buffer;
+    private static final AtomicLong droppedBefore = new AtomicLong();
+
+    public static synchronized void start(int bufferSize, int sampleRate, long slowThresholdMs) {
+        AsyncP6spyLogger.sampleRate = sampleRate;
+        AsyncP6spyLogger.slowThresholdMs = slowThresholdMs;
+        if (buffer == null) {
+            buffer = new SqlLogRingBuffer(bufferSize, AsyncP6spyLogger::write);
+        }
+    }
+
+    /**
+     * 남은 로그를 출력하고 소비 스레드를 종료한다. 이후의 로그는 쿼리 스레드에서 바로 출력한다.
+     */
+    public static synchronized void shutdown() {
+        SqlLogRingBuffer current = buffer;
+        if (current == null) {
+            return;
+        }
+        buffer = null;
+        try {
+            current.shutdown(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        droppedBefore.addAndGet(current.getDropped());
+    }
+
+    /**
+     * 버퍼가 가득 차서 버린 로그 수 (/admin/sql-stats)
+     */
+    public static long dropped() {
+        SqlLogRingBuffer current = buffer;
+        return droppedBefore.get() + (current == null ? 0 : current.getDropped());
+    }
+
+    @Override
+    public void logSQL(int connectionId, String now, long elapsed, Category category, String prepared, String sql, String url) {
+        if (!sampled(elapsed, category)) {
+            return;
+        }
+        SqlLogRingBuffer current = buffer;
+        if (current == null) {
+            write(connectionId, now, elapsed, category, prepared, sql, url);
+        } else {
+            current.offer(connectionId, now, elapsed, category, prepared, sql, url);
+        }
+    }
+
+    @Override
+    public void logException(Exception e) {
+        log.info("", e);
+    }
+
+    @Override
+    public void logText(String text) {
+        log.info(text);
+    }
+
+    @Override
+    public boolean isCategoryEnabled(Category category) {
+        if (Category.ERROR.equals(category)) {
+            return log.isErrorEnabled();
+        } else if (Category.WARN.equals(category)) {
+            return log.isWarnEnabled();
+        } else if (Category.DEBUG.equals(category)) {
+            return log.isDebugEnabled();
+        } else {
+            return log.isInfoEnabled();
+        }
+    }
+
+    private static boolean sampled(long elapsed, Category category) {
+        if (Category.ERROR.equals(category)) {
+            return true;
+        }
+        long threshold = slowThresholdMs;
+        if (threshold >= 0 && elapsed >= threshold) {
+            return true;
+        }
+        int rate = sampleRate;
+        return rate == 1 || (rate > 1 && ThreadLocalRandom.current().nextInt(rate) == 0);
+    }
+
+    /**
+     * 소비 스레드에서 실행된다. (버퍼가 없으면 쿼리 스레드)
+     */
+    private static void write(int connectionId, String now, long elapsed, Category category, String prepared, String sql, String url) {
+        String message = P6SpyOptions.getActiveInstance().getLogMessageFormatInstance()
+                .formatMessage(connectionId, now, elapsed, category.toString(), prepared, sql, url);
+
+        if (Category.ERROR.equals(category)) {
+            log.error(message);
+        } else if (Category.WARN.equals(category)) {
+            log.warn(message);
+        } else if (Category.DEBUG.equals(category)) {
+            log.debug(message);
+        } else {
+            log.info(message);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package study.datajpa.config.P6spy;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 커넥션 점유 시간 - 풀에서 커넥션을 얻은 시점부터 close(풀 반환)까지
+ *
+ * OSIV 가 켜져 있으면 요청이 끝날 때(응답 직렬화 포함)까지 커넥션을 반환하지 않으므로 점유 시간이 길어진다.
+ */
+@Component
+public class ConnectionHoldTimeListener extends SimpleJdbcEventListener {
+
+    private final Map<Integer, Long> acquiredAt = new ConcurrentHashMap<>();
+    private final AtomicInteger maxInUse = new AtomicInteger();
+    private volatile LatencyHistogram holdTime = new LatencyHistogram();
+
+    @Override
+    public void onAfterGetConnection(ConnectionInformation connectionInformation, SQLException e) {
+        if (e == null) {
+            acquiredAt.put(connectionInformation.getConnectionId(), System.nanoTime());
+            maxInUse.accumulateAndGet(acquiredAt.size(), Math::max);
+        }
+    }
+
+    @Override
+    public void onAfterConnectionClose(ConnectionInformation connectionInformation, SQLException e) {
+        Long start = acquiredAt.remove(connectionInformation.getConnectionId());
+        if (start != null) {
+            holdTime.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+
+    public Report report() {
+        return new Report(holdTime, acquiredAt.size(), maxInUse.get());
+    }
+
+    /**
+     * 부하 테스트 전후 비교용 - 사용 중인 커넥션의 시작 시각은 유지한다.
+     */
+    public void reset() {
+        holdTime = new LatencyHistogram();
+        maxInUse.set(acquiredAt.size());
+    }
+
+    @Getter
+    public static class Report {
+        private final long count;
+        private final double meanMicros;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+        private final int inUse;
+        private final int maxInUse;
+
+        private Report(LatencyHistogram holdTime, int inUse, int maxInUse) {
+            this.count = holdTime.getCount();
+            this.meanMicros = holdTime.getMeanMicros();
+            this.p50Micros = holdTime.percentile(50);
+            this.p99Micros = holdTime.percentile(99);
+            this.maxMicros = holdTime.getMaxMicros();
+            this.inUse = inUse;
+            this.maxInUse = maxInUse;
+        }
+    }
+}
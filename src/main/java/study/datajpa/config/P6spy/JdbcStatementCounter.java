@@ -0,0 +1,57 @@
+package study.datajpa.config.P6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * P6Spy 이벤트로 JDBC 실행 횟수를 센다.
+ *  - p6spy-spring-boot-starter 는 JdbcEventListener 빈을 자동으로 등록한다.
+ *  - executions: execute/executeQuery/executeUpdate/executeBatch 호출 수
+ *  - batchExecutions: executeBatch 호출 수
+ *  - batchedStatements: addBatch 로 배치에 담긴 문장 수
+ */
+@Component
+public class JdbcStatementCounter extends SimpleJdbcEventListener {
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong batchExecutions = new AtomicLong();
+    private final AtomicLong batchedStatements = new AtomicLong();
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        executions.incrementAndGet();
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
+        batchExecutions.incrementAndGet();
+        super.onAfterExecuteBatch(statementInformation, timeElapsedNanos, updateCounts, e);
+    }
+
+    @Override
+    public void onAfterAnyAddBatch(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        batchedStatements.incrementAndGet();
+    }
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    public long getBatchExecutions() {
+        return batchExecutions.get();
+    }
+
+    public long getBatchedStatements() {
+        return batchedStatements.get();
+    }
+
+    public void reset() {
+        executions.set(0);
+        batchExecutions.set(0);
+        batchedStatements.set(0);
+    }
+}
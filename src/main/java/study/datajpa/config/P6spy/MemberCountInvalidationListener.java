@@ -0,0 +1,71 @@
+package study.datajpa.config.P6spy;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.datajpa.repository.MemberCountSupport;
+
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * member 테이블 쓰기를 감지하여 count 캐시를 무효화한다.
+ *  - 엔티티 리스너와 달리 @Modifying 벌크 연산, 네이티브 쿼리까지 감지된다.
+ *  - 실행 직후 한 번, 해당 커넥션이 커밋/롤백될 때 한 번 더 무효화하여
+ *    커밋 전에 다른 트랜잭션이 계산한 값이 캐시에 남지 않도록 한다.
+ *    (autocommit 으로 실행되어 커밋 이벤트가 없으면 커넥션 반납 시점에 정리한다.)
+ *
+ * JdbcEventListener 는 DataSource 를 감쌀 때 주입되므로, DataSource 에 의존하는 빈은 ObjectProvider 로 늦게 가져온다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberCountInvalidationListener extends SimpleJdbcEventListener {
+
+    private static final Pattern MEMBER_WRITE =
+            Pattern.compile("^\\s*(insert\\s+into|update|delete\\s+from)\\s+member\\b", Pattern.CASE_INSENSITIVE);
+
+    private final ObjectProvider<MemberCountSupport> memberCountSupport;
+    private final Set<Integer> dirtyConnections = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (sql != null && MEMBER_WRITE.matcher(sql).find()) {
+            dirtyConnections.add(statementInformation.getConnectionInformation().getConnectionId());
+            invalidate();
+        }
+    }
+
+    @Override
+    public void onAfterCommit(ConnectionInformation connectionInformation, long timeElapsedNanos, SQLException e) {
+        afterCompletion(connectionInformation);
+    }
+
+    @Override
+    public void onAfterRollback(ConnectionInformation connectionInformation, long timeElapsedNanos, SQLException e) {
+        afterCompletion(connectionInformation);
+    }
+
+    @Override
+    public void onAfterConnectionClose(ConnectionInformation connectionInformation, SQLException e) {
+        afterCompletion(connectionInformation);
+    }
+
+    private void afterCompletion(ConnectionInformation connectionInformation) {
+        if (dirtyConnections.remove(connectionInformation.getConnectionId())) {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        MemberCountSupport countSupport = memberCountSupport.getIfAvailable();
+        if (countSupport != null) {
+            countSupport.invalidate();
+        }
+    }
+}
@@ -1,16 +1,42 @@
 package study.datajpa.config.P6spy;
 
 import com.p6spy.engine.spy.P6SpyOptions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 @Configuration
 public class P6spyLogMessageFormatConfiguration {
+
+    @Value("${datajpa.p6spy.async-logging:false}")
+    private boolean asyncLogging;
+    @Value("${datajpa.p6spy.buffer-size:8192}")
+    private int bufferSize;
+    @Value("${datajpa.p6spy.sample-rate:1}")
+    private int sampleRate;
+    @Value("${datajpa.p6spy.slow-threshold-ms:-1}")
+    private long slowThresholdMs;
+
     @PostConstruct
     public void setLogMessageFormat() {
         P6SpyOptions.getActiveInstance()
                 .setLogMessageFormat(P6spyPrettySqlFormatter.class.getName());
+
+        if (asyncLogging) {
+            AsyncP6spyLogger.start(bufferSize, sampleRate, slowThresholdMs);
+            P6SpyOptions.getActiveInstance()
+                    .setAppender(AsyncP6spyLogger.class.getName());
+        }
+    }
+
+    /**
+     * 비동기 로그의 소비 스레드를 종료한다. (남은 로그는 출력한다.)
+     */
+    @PreDestroy
+    public void stopAsyncLogging() {
+        AsyncP6spyLogger.shutdown();
     }
 
 }
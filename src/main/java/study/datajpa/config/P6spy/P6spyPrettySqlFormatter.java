@@ -4,12 +4,18 @@ import com.p6spy.engine.logging.Category;
 import com.p6spy.engine.spy.appender.MessageFormattingStrategy;
 import org.hibernate.engine.jdbc.internal.FormatStyle;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 public class P6spyPrettySqlFormatter implements MessageFormattingStrategy {
 
+    /**
+     * SimpleDateFormat 은 thread-safe 하지 않아 매번 생성했지만, DateTimeFormatter 는 공유할 수 있다.
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yy.MM.dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
     @Override
     public String formatMessage(int connectionId, String now, long elapsed, String category, String prepared, String sql, String url) {
         sql = new StringBuilder()
@@ -19,22 +25,29 @@ public class P6spyPrettySqlFormatter implements MessageFormattingStrategy {
                 .append(formatSql(category, sql))
                 .toString();
 
-        Date currentDate = new Date();
-
-        SimpleDateFormat format1 = new SimpleDateFormat("yy.MM.dd HH:mm:ss");
-
         //return now + "|" + elapsed + "ms|" + category + "|connection " + connectionId + "|" + P6Util.singleLine(prepared) + sql;
-        return format1.format(currentDate) + " | " + "OperationTime : " + elapsed + "ms" + sql;
+        return formatNow(now) + " | " + "OperationTime : " + elapsed + "ms" + sql;
     }
 
 
+    /**
+     * now 는 쿼리를 실행한 시각(epoch millis)이다. 비동기 로거는 나중에 포맷하므로 현재 시각을 쓰면 안 된다.
+     * p6spy dateformat 이 설정되어 이미 포맷된 값이면 그대로 사용한다.
+     */
+    private static String formatNow(String now) {
+        try {
+            return DATE_FORMAT.format(Instant.ofEpochMilli(Long.parseLong(now)));
+        } catch (NumberFormatException e) {
+            return now;
+        }
+    }
+
     private String formatSql(String category, String sql) {
-        if (sql == null || sql.trim().equals("")) return sql;
+        if (sql == null || sql.isBlank()) return sql;
 
         // Only format Statement, distinguish DDL And DML
         if (Category.STATEMENT.getName().equals(category)) {
-            String tmpsql = sql.trim().toLowerCase(Locale.ROOT);
-            if (tmpsql.startsWith("create") || tmpsql.startsWith("alter") || tmpsql.startsWith("comment")) {
+            if (startsWithIgnoreCase(sql, "create") || startsWithIgnoreCase(sql, "alter") || startsWithIgnoreCase(sql, "comment")) {
                 sql = FormatStyle.DDL.getFormatter().format(sql);
             } else {
                 sql = FormatStyle.BASIC.getFormatter().format(sql);
@@ -42,4 +55,15 @@ public class P6spyPrettySqlFormatter implements MessageFormattingStrategy {
         }
         return sql;
     }
+
+    /**
+     * trim().toLowerCase() 로 SQL 전체를 복사하지 않고 앞부분만 비교한다.
+     */
+    private static boolean startsWithIgnoreCase(String sql, String prefix) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, prefix, 0, prefix.length());
+    }
 }
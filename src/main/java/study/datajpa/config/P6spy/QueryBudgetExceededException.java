@@ -0,0 +1,8 @@
+package study.datajpa.config.P6spy;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String request, int statements, int maxStatements) {
+        super(request + " executed " + statements + " statements (budget " + maxStatements + ")");
+    }
+}
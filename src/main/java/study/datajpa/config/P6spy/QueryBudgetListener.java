@@ -0,0 +1,18 @@
+package study.datajpa.config.P6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class QueryBudgetListener extends SimpleJdbcEventListener {
+
+    private final QueryBudgetMonitor queryBudgetMonitor;
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        queryBudgetMonitor.onStatement(statementInformation.getSql());
+    }
+}
@@ -0,0 +1,200 @@
+package study.datajpa.config.P6spy;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP 요청 단위 SQL 실행 예산(N + 1 감지)
+ *
+ * QueryBudgetInterceptor 가 요청 시작/종료를 알리고, QueryBudgetListener 가 실행되는 SQL 을 전달한다.
+ *  - 같은 모양의 SQL(바인드 값만 다른 SQL)이 repeat-threshold 번 이상 실행되면 N + 1 의심으로 호출 위치를 기록한다.
+ *  - 요청의 SQL 실행 수가 max-statements 를 넘으면 로그를 남기고, mode=reject 이면 예외로 요청을 중단시킨다.
+ *  - 호출 위치별 누적 결과는 worstCallSites() 로 조회한다. (/admin/query-budget)
+ *    같은 호출 위치를 여러 요청이 지나가므로 요청별로도 나누어 집계한다.
+ *  - 예산은 요청 스레드(ThreadLocal)에 있으므로 다른 스레드에서 실행하는 작업은 propagate 로 감싸야 함께 센다.
+ *    (InListQuerySupport, MemberBulkUpdateExecutor 의 청크 작업)
+ */
+@Slf4j
+@Component
+public class QueryBudgetMonitor {
+
+    private static final ThreadLocal<RequestBudget> CURRENT = new ThreadLocal<>();
+    private static final String BASE_PACKAGE = "study.datajpa.";
+    private static final String CONFIG_PACKAGE = "study.datajpa.config.";
+
+    private final boolean enabled;
+    private final int maxStatements;
+    private final int repeatThreshold;
+    private final boolean reject;
+
+    private final Map<String, CallSiteStats> callSites = new ConcurrentHashMap<>();
+    private final AtomicLong overBudgetRequests = new AtomicLong();
+
+    public QueryBudgetMonitor(@Value("${datajpa.query-budget.enabled:true}") boolean enabled,
+                              @Value("${datajpa.query-budget.max-statements:30}") int maxStatements,
+                              @Value("${datajpa.query-budget.repeat-threshold:5}") int repeatThreshold,
+                              @Value("${datajpa.query-budget.mode:log}") String mode) {
+        this.enabled = enabled;
+        this.maxStatements = maxStatements;
+        this.repeatThreshold = repeatThreshold;
+        this.reject = "reject".equalsIgnoreCase(mode);
+    }
+
+    public void begin(String request) {
+        if (enabled) {
+            CURRENT.set(new RequestBudget(request));
+        }
+    }
+
+    public void end() {
+        RequestBudget budget = CURRENT.get();
+        if (budget == null) {
+            return;
+        }
+        CURRENT.remove();
+
+        budget.repeated.forEach((sql, callSite) -> callSites
+                .computeIfAbsent(callSite + " | " + sql, key -> new CallSiteStats(callSite, sql))
+                .record(budget.request, budget.counts.get(sql)));
+
+        int statements = budget.statements.get();
+        if (statements > maxStatements) {
+            overBudgetRequests.incrementAndGet();
+            log.warn("[query-budget] {} executed {} statements (budget {})", budget.request, statements, maxStatements);
+        }
+        budget.repeated.forEach((sql, callSite) ->
+                log.warn("[query-budget] possible N+1 in {} at {}: {} x {}", budget.request, callSite, budget.counts.get(sql), sql));
+    }
+
+    /**
+     * JDBC 실행 직전에 호출된다. 요청 범위 밖(스케줄러, 테스트 등)의 SQL 은 세지 않는다.
+     */
+    void onStatement(String sql) {
+        RequestBudget budget = CURRENT.get();
+        if (budget == null || sql == null) {
+            return;
+        }
+
+        int statements = budget.statements.incrementAndGet();
+        int repeats = budget.counts.merge(sql, 1, Integer::sum);
+        if (repeats == repeatThreshold) {
+            budget.repeated.put(sql, callSite());
+        }
+        if (reject && statements > maxStatements) {
+            throw new QueryBudgetExceededException(budget.request, statements, maxStatements);
+        }
+    }
+
+    /**
+     * 현재 요청의 예산을 작업을 실행하는 스레드에 넘긴다. 요청 범위 밖이면 그대로 실행한다.
+     * 요청 스레드는 end() 전에 작업이 끝나기를 기다려야 한다.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        RequestBudget budget = CURRENT.get();
+        if (budget == null) {
+            return task;
+        }
+        return () -> {
+            RequestBudget previous = CURRENT.get();
+            CURRENT.set(budget);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    public List<CallSiteStats> worstCallSites(int top) {
+        return callSites.values().stream()
+                .sorted(Comparator.comparingInt(CallSiteStats::getMaxRepeats).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+
+    public long getOverBudgetRequests() {
+        return overBudgetRequests.get();
+    }
+
+    /**
+     * config 패키지(P6Spy 리스너 등)를 제외한 애플리케이션 코드 중 가장 안쪽 프레임
+     */
+    private static String callSite() {
+        Optional<StackWalker.StackFrame> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(BASE_PACKAGE) && !f.getClassName().startsWith(CONFIG_PACKAGE))
+                .filter(f -> !f.getClassName().contains("$$") && !f.getClassName().contains("$HibernateProxy$"))
+                .findFirst());
+        return frame.map(f -> f.getClassName() + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("unknown");
+    }
+
+    /**
+     * propagate 로 여러 스레드가 함께 센다.
+     */
+    private static class RequestBudget {
+        private final String request;
+        private final AtomicInteger statements = new AtomicInteger();
+        private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+        private final Map<String, String> repeated = Collections.synchronizedMap(new LinkedHashMap<>());
+
+        private RequestBudget(String request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * 호출 위치 전체 집계와 요청별 집계(requests) - 처음 지나간 요청에 모든 반복을 돌리지 않는다.
+     */
+    @Getter
+    public static class CallSiteStats {
+        private final String callSite;
+        private final String sql;
+        private long occurrences;
+        private int maxRepeats;
+        private long totalRepeats;
+        private final Map<String, RequestStats> requests = new ConcurrentHashMap<>();
+
+        private CallSiteStats(String callSite, String sql) {
+            this.callSite = callSite;
+            this.sql = sql;
+        }
+
+        private synchronized void record(String request, int repeats) {
+            occurrences++;
+            totalRepeats += repeats;
+            maxRepeats = Math.max(maxRepeats, repeats);
+            requests.computeIfAbsent(request, key -> new RequestStats()).record(repeats);
+        }
+    }
+
+    @Getter
+    public static class RequestStats {
+        private long occurrences;
+        private int maxRepeats;
+        private long totalRepeats;
+
+        private synchronized void record(int repeats) {
+            occurrences++;
+            totalRepeats += repeats;
+            maxRepeats = Math.max(maxRepeats, repeats);
+        }
+    }
+}
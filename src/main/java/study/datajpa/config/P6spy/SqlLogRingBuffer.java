@@ -0,0 +1,135 @@
+package study.datajpa.config.P6spy;
+
+import com.p6spy.engine.logging.Category;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 미리 할당한 슬롯에 SQL 로그 원본 값만 담아 두고, 백그라운드 스레드 하나가 꺼내서 포맷/출력한다.
+ *
+ * 쿼리 스레드는 슬롯 번호를 CAS 로 할당받아 참조 몇 개를 복사하는 것 외에는 아무 일도 하지 않는다.
+ * 버퍼가 가득 차면 기다리지 않고 로그를 버린다. (dropped 로 확인)
+ * 인스턴스마다 소비 스레드를 하나 만들므로 애플리케이션에서는 하나만 만들고(AsyncP6spyLogger), 종료 시 shutdown 한다.
+ */
+public class SqlLogRingBuffer {
+
+    public interface Sink {
+        void write(int connectionId, String now, long elapsed, Category category, String prepared, String sql, String url);
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Slot[] slots;
+    private final int mask;
+    private final Sink sink;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running = true;
+    private final Thread consumer;
+
+    public SqlLogRingBuffer(int capacity, Sink sink) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.sink = sink;
+
+        this.consumer = new Thread(this::drain, "p6spy-async-log");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * @return 버퍼가 가득 차서 버려졌으면 false
+     */
+    public boolean offer(int connectionId, String now, long elapsed, Category category, String prepared, String sql, String url) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.connectionId = connectionId;
+        slot.now = now;
+        slot.elapsed = elapsed;
+        slot.category = category;
+        slot.prepared = prepared;
+        slot.sql = sql;
+        slot.url = url;
+        slot.sequence = sequence; //volatile write - 위의 값들을 소비 스레드에 공개한다.
+        return true;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 이미 담긴 로그를 모두 출력한 뒤 소비 스레드를 종료한다. (최대 timeout 까지 기다린다.)
+     */
+    public void shutdown(Duration timeout) throws InterruptedException {
+        running = false;
+        consumer.join(timeout.toMillis());
+    }
+
+    public void shutdown() {
+        running = false;
+    }
+
+    private void drain() {
+        long next = consumed;
+        while (true) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.sequence != next) {
+                //종료 요청 후 비어 있으면 끝낸다. (offer 중이던 슬롯은 버려질 수 있다.)
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                sink.write(slot.connectionId, slot.now, slot.elapsed, slot.category, slot.prepared, slot.sql, slot.url);
+            } catch (RuntimeException e) {
+                //로그 출력 실패로 소비 스레드가 멈추지 않도록 한다.
+            }
+            slot.clear();
+            consumed = ++next;
+        }
+    }
+
+    private static final class Slot {
+        private volatile long sequence = -1;
+        private int connectionId;
+        private String now;
+        private long elapsed;
+        private Category category;
+        private String prepared;
+        private String sql;
+        private String url;
+
+        private void clear() {
+            now = null;
+            category = null;
+            prepared = null;
+            sql = null;
+            url = null;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package study.datajpa.config.P6spy;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 정규화한 SQL 별 실행 시간 히스토그램
+ *
+ * StatementMetricsListener 가 P6Spy 의 실행 시간/처리 행 수를 전달한다.
+ *  - 바인드 파라미터는 이미 ? 이므로, 공백과 IN (?, ?, ...) 길이만 정규화한다.
+ *  - /admin/sql-stats 로 조회하고, report-interval-ms 마다 총 실행 시간 상위 N 개를 로그로 남긴다.
+ */
+@Slf4j
+@Component
+public class StatementMetrics {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_NORMALIZED_CACHE = 10_000;
+    private static final int MAX_STATEMENTS = 2_000;
+    private static final String OTHER = "(other)";
+
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+    private final int reportTop;
+
+    public StatementMetrics(@Value("${datajpa.sql-stats.report-top:10}") int reportTop) {
+        this.reportTop = reportTop;
+    }
+
+    void recordExecution(String sql, long elapsedNanos, boolean error) {
+        StatementStats stats = statsOf(sql);
+        if (stats == null) {
+            return;
+        }
+        stats.latency.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        if (error) {
+            stats.errors.increment();
+        }
+    }
+
+    void recordRows(String sql, long rows) {
+        StatementStats stats = statsOf(sql);
+        if (stats != null && rows > 0) {
+            stats.rows.add(rows);
+        }
+    }
+
+    public List<Report> top(int top, String sort) {
+        Comparator<Report> comparator;
+        if ("p99".equalsIgnoreCase(sort)) {
+            comparator = Comparator.comparingLong(Report::getP99Micros);
+        } else if ("count".equalsIgnoreCase(sort)) {
+            comparator = Comparator.comparingLong(Report::getCount);
+        } else {
+            comparator = Comparator.comparingLong(Report::getTotalMicros);
+        }
+
+        return statements.entrySet().stream()
+                .map(entry -> new Report(entry.getKey(), entry.getValue()))
+                .sorted(comparator.reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        statements.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.sql-stats.report-interval-ms:60000}",
+            initialDelayString = "${datajpa.sql-stats.report-interval-ms:60000}")
+    public void logSlowStatements() {
+        List<Report> reports = top(reportTop, "total");
+        if (reports.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("[sql-stats] top ").append(reports.size()).append(" statements by total time");
+        for (Report report : reports) {
+            message.append("\n  total=").append(report.getTotalMicros() / 1000).append("ms")
+                    .append(" count=").append(report.getCount())
+                    .append(" p50=").append(report.getP50Micros()).append("us")
+                    .append(" p99=").append(report.getP99Micros()).append("us")
+                    .append(" p999=").append(report.getP999Micros()).append("us")
+                    .append(" rows=").append(report.getRows())
+                    .append(" | ").append(report.getSql());
+        }
+        log.info(message.toString());
+    }
+
+    private StatementStats statsOf(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String key = normalize(sql);
+        StatementStats stats = statements.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        //리터럴이 박힌 SQL 이 계속 새로 들어와도 메모리가 무한히 늘지 않도록 한다.
+        return statements.computeIfAbsent(statements.size() < MAX_STATEMENTS ? key : OTHER, k -> new StatementStats());
+    }
+
+    private String normalize(String sql) {
+        String cached = normalized.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String result = WHITESPACE.matcher(IN_LIST.matcher(sql.trim()).replaceAll("(?...)")).replaceAll(" ");
+        if (normalized.size() < MAX_NORMALIZED_CACHE) {
+            normalized.put(sql, result);
+        }
+        return result;
+    }
+
+    private static class StatementStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    @Getter
+    public static class Report {
+        private final String sql;
+        private final long count;
+        private final long rows;
+        private final long errors;
+        private final long totalMicros;
+        private final double meanMicros;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long p999Micros;
+        private final long maxMicros;
+
+        private Report(String sql, StatementStats stats) {
+            this.sql = sql;
+            this.count = stats.latency.getCount();
+            this.rows = stats.rows.sum();
+            this.errors = stats.errors.sum();
+            this.totalMicros = stats.latency.getTotalMicros();
+            this.meanMicros = stats.latency.getMeanMicros();
+            this.p50Micros = stats.latency.percentile(50);
+            this.p99Micros = stats.latency.percentile(99);
+            this.p999Micros = stats.latency.percentile(99.9);
+            this.maxMicros = stats.latency.getMaxMicros();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package study.datajpa.config.P6spy;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+@Component
+@RequiredArgsConstructor
+public class StatementMetricsListener extends SimpleJdbcEventListener {
+
+    private final StatementMetrics statementMetrics;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        statementMetrics.recordExecution(statementInformation.getSql(), timeElapsedNanos, e != null);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+        statementMetrics.recordRows(statementInformation.getSql(), rowCount);
+        super.onAfterExecuteUpdate(statementInformation, timeElapsedNanos, rowCount, e);
+    }
+
+    @Override
+    public void onAfterExecuteUpdate(StatementInformation statementInformation, long timeElapsedNanos, String sql, int rowCount, SQLException e) {
+        statementMetrics.recordRows(sql, rowCount);
+        super.onAfterExecuteUpdate(statementInformation, timeElapsedNanos, sql, rowCount, e);
+    }
+
+    @Override
+    public void onAfterExecuteBatch(StatementInformation statementInformation, long timeElapsedNanos, int[] updateCounts, SQLException e) {
+        if (updateCounts != null) {
+            long rows = 0;
+            for (int updateCount : updateCounts) {
+                rows += Math.max(0, updateCount);
+            }
+            statementMetrics.recordRows(statementInformation.getSql(), rows);
+        }
+        super.onAfterExecuteBatch(statementInformation, timeElapsedNanos, updateCounts, e);
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        if (hasNext) {
+            statementMetrics.recordRows(resultSetInformation.getStatementInformation().getSql(), 1);
+        }
+    }
+}
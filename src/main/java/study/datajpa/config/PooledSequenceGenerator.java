@@ -0,0 +1,36 @@
+package study.datajpa.config;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * pooled-lo 옵티마이저를 사용하는 시퀀스(시퀀스 미지원 DB는 테이블) 기반 ID 생성기
+ *
+ * IDENTITY 전략은 INSERT 를 실행해야 식별자를 알 수 있어 persist 시점에 즉시 INSERT 가 나가고,
+ * hibernate.jdbc.batch_size 를 설정해도 JDBC 배치가 동작하지 않는다.
+ * 시퀀스 값을 increment_size 만큼 미리 할당받아 두면 INSERT 를 flush 시점까지 모아 배치로 보낼 수 있다.
+ *
+ * increment_size 는 엔티티의 @Parameter 가 우선이며,
+ * 없으면 spring.jpa.properties.datajpa.id.increment_size 설정값을 사용한다.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String INCREMENT_SIZE_SETTING = "datajpa.id.increment_size";
+    public static final int DEFAULT_INCREMENT_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object incrementSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings()
+                .get(INCREMENT_SIZE_SETTING);
+
+        params.putIfAbsent(INCREMENT_PARAM, incrementSize == null ? String.valueOf(DEFAULT_INCREMENT_SIZE) : incrementSize.toString());
+        params.putIfAbsent(OPT_PARAM, "pooled-lo");
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.config;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.*;
+
+/**
+ * 조회 전용 트랜잭션 - @Transactional(readOnly = true)
+ *
+ * 스프링(HibernateJpaDialect)이 readOnly 트랜잭션을 시작하면
+ *  - 세션 FlushMode 를 MANUAL 로 바꾸어 커밋/쿼리 전에 flush 하지 않는다.
+ *  - Session.setDefaultReadOnly(true) 로 조회한 엔티티의 스냅샷을 만들지 않는다. (변경 감지 X)
+ *  - JDBC 커넥션에 setReadOnly(true) 를 전달한다.
+ * 조회 행 수가 많은 쿼리의 fetch size 는 hibernate.jdbc.fetch_size 로 전체 설정한다.
+ *
+ * 타입에 선언하면 모든 메소드에 적용되고, 변경이 필요한 메소드는 @Transactional 을 따로 선언한다.
+ * 이미 진행 중인 트랜잭션에 참여하는 경우에는 바깥 트랜잭션의 설정을 따른다.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReadOnlyQuery {
+}
@@ -0,0 +1,101 @@
+package study.datajpa.config;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 요청 단위 등록자/수정자 식별자 (BaseEntity.createdBy, lastModifiedBy)
+ *
+ * 인증 사용자(Principal) -> 요청 헤더(기본 X-User-Id) -> 요청마다 하나 생성한 익명 id 순서로 찾고,
+ * 찾은 값은 요청 속성에 저장하여 같은 요청의 다른 INSERT/UPDATE 에서 다시 계산하지 않는다.
+ * 요청 헤더는 클라이언트가 임의로 보낼 수 있으므로, 헤더를 덮어쓰는 신뢰할 수 있는 게이트웨이 뒤에서만
+ * trustHeader 를 켜서 사용한다. (기본값 false)
+ * 요청 밖(스케줄러, 배치 스레드)에서는 systemAuditor 를 사용한다.
+ *
+ * 익명 id 는 SecureRandom 을 공유하는 UUID.randomUUID() 대신 스레드별 ThreadLocalRandom 으로 만든다. (보안 용도 아님)
+ * compact 이면 UUID 형식의 값을 22자 base64url 로 줄여 저장한다. (36자 -> 22자)
+ */
+public class RequestAuditorAware implements AuditorAware<String> {
+
+    static final String AUDITOR_ATTRIBUTE = RequestAuditorAware.class.getName() + ".auditor";
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final String header;
+    private final boolean trustHeader;
+    private final String systemAuditor;
+    private final boolean compact;
+
+    public RequestAuditorAware(String header, boolean trustHeader, String systemAuditor, boolean compact) {
+        this.header = header;
+        this.trustHeader = trustHeader;
+        this.systemAuditor = systemAuditor;
+        this.compact = compact;
+    }
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.of(systemAuditor);
+        }
+
+        Object cached = attributes.getAttribute(AUDITOR_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached != null) {
+            return Optional.of((String) cached);
+        }
+
+        String auditor = resolve(attributes);
+        attributes.setAttribute(AUDITOR_ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+        return Optional.of(auditor);
+    }
+
+    private String resolve(RequestAttributes attributes) {
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            Principal principal = request.getUserPrincipal();
+            if (principal != null) {
+                return encode(principal.getName());
+            }
+            if (trustHeader) {
+                String userId = request.getHeader(header);
+                if (StringUtils.hasText(userId)) {
+                    return encode(userId.trim());
+                }
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return encode(new UUID(random.nextLong(), random.nextLong()).toString());
+    }
+
+    /**
+     * UUID 형식이 아니면 그대로 저장한다.
+     */
+    String encode(String auditor) {
+        if (!compact || auditor.length() != 36) {
+            return auditor;
+        }
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(auditor);
+        } catch (IllegalArgumentException e) {
+            return auditor;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+        return BASE64_URL.encodeToString(buffer.array());
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberLookup;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final QueryBudgetInterceptor queryBudgetInterceptor;
+    private final MemberLookup memberLookup;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryBudgetInterceptor)
+                .excludePathPatterns("/admin/**");
+    }
+
+    /**
+     * @PathVariable Member - 도메인 클래스 컨버터(DomainClassConverter) 대신 MemberLookup 으로 조회한다.
+     * String -> Member 변환기가 더 구체적인 타입 쌍이므로 도메인 클래스 컨버터보다 먼저 선택된다.
+     * 도메인 클래스 컨버터와 같이 없는 id 는 null 로 변환한다.
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        Converter<String, Member> memberConverter = id -> memberLookup.findById(Long.valueOf(id)).orElse(null);
+        registry.addConverter(String.class, Member.class, memberConverter);
+    }
+}
@@ -0,0 +1,131 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.config.P6spy.AsyncP6spyLogger;
+import study.datajpa.config.P6spy.ConnectionHoldTimeListener;
+import study.datajpa.config.P6spy.QueryBudgetMonitor;
+import study.datajpa.config.P6spy.StatementMetrics;
+import study.datajpa.repository.MemberLookup;
+import study.datajpa.repository.OptimisticRetryExecutor;
+import study.datajpa.repository.TeamSummaryConsistencyCheck;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final QueryBudgetMonitor queryBudgetMonitor;
+    private final StatementMetrics statementMetrics;
+    private final EntityManagerFactory emf;
+    private final ConnectionHoldTimeListener connectionHoldTimeListener;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final MemberLookup memberLookup;
+    private final TeamSummaryConsistencyCheck teamSummaryConsistencyCheck;
+
+    /**
+     * N + 1 의심 호출 위치 - 한 요청에서 같은 SQL 을 가장 많이 반복한 순서
+     */
+    @GetMapping("/admin/query-budget")
+    public List<QueryBudgetMonitor.CallSiteStats> queryBudget(@RequestParam(value = "top", defaultValue = "10") int top) {
+        return queryBudgetMonitor.worstCallSites(top);
+    }
+
+    /**
+     * SQL 별 실행 시간 분포 (p50/p99/p999, 실행 수, 처리 행 수)와 비동기 SQL 로그가 버퍼가 가득 차서 버린 수
+     *
+     * localhost:8080/admin/sql-stats?top=10&sort=total|p99|count
+     */
+    @GetMapping("/admin/sql-stats")
+    public Map<String, Object> sqlStats(@RequestParam(value = "top", defaultValue = "10") int top,
+                                        @RequestParam(value = "sort", defaultValue = "total") String sort) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statements", statementMetrics.top(top, sort));
+        result.put("asyncLogDropped", AsyncP6spyLogger.dropped());
+        return result;
+    }
+
+    /**
+     * 커넥션 점유 시간 분포 (풀에서 얻은 시점 ~ 반환 시점)
+     *
+     * localhost:8080/admin/connection-hold?reset=true
+     */
+    @GetMapping("/admin/connection-hold")
+    public ConnectionHoldTimeListener.Report connectionHold(@RequestParam(value = "reset", defaultValue = "false") boolean reset) {
+        ConnectionHoldTimeListener.Report report = connectionHoldTimeListener.report();
+        if (reset) {
+            connectionHoldTimeListener.reset();
+        }
+        return report;
+    }
+
+    /**
+     * 낙관적 락 충돌/재시도 현황
+     */
+    @GetMapping("/admin/optimistic-retry")
+    public OptimisticRetryExecutor.Report optimisticRetry() {
+        return optimisticRetryExecutor.report();
+    }
+
+    /**
+     * 동시 조회 합치기(single-flight) 현황 - 호출 수, 실제 조회 수, 합쳐진 호출 수와 비율
+     *
+     * localhost:8080/admin/single-flight?reset=true
+     */
+    @GetMapping("/admin/single-flight")
+    public Map<String, Object> singleFlight(@RequestParam(value = "reset", defaultValue = "false") boolean reset) {
+        Map<String, Object> report = memberLookup.report();
+        if (reset) {
+            memberLookup.reset();
+        }
+        return report;
+    }
+
+    /**
+     * 팀 요약 일관성 검사 결과 - run=true 이면 바로 검사한다. (datajpa.team-summary.repair 이면 다시 계산)
+     *
+     * localhost:8080/admin/team-summary?run=true
+     */
+    @GetMapping("/admin/team-summary")
+    public TeamSummaryConsistencyCheck.Report teamSummary(@RequestParam(value = "run", defaultValue = "false") boolean run) {
+        return run ? teamSummaryConsistencyCheck.check() : teamSummaryConsistencyCheck.lastReport();
+    }
+
+    /**
+     * 2차 캐시 / 쿼리 캐시 적중률 (hibernate.generate_statistics: true 필요)
+     */
+    @GetMapping("/admin/cache-stats")
+    public Map<String, Object> cacheStats() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("secondLevelCacheHit", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMiss", statistics.getSecondLevelCacheMissCount());
+        result.put("secondLevelCachePut", statistics.getSecondLevelCachePutCount());
+        result.put("queryCacheHit", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMiss", statistics.getQueryCacheMissCount());
+        result.put("queryCachePut", statistics.getQueryCachePutCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hit", region.getHitCount());
+            regionStats.put("miss", region.getMissCount());
+            regionStats.put("put", region.getPutCount());
+            regionStats.put("elementCountInMemory", region.getElementCountInMemory());
+            regions.put(regionName, regionStats);
+        }
+        result.put("regions", regions);
+        return result;
+    }
+}
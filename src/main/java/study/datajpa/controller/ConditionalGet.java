@@ -0,0 +1,52 @@
+package study.datajpa.controller;
+
+import org.springframework.web.context.request.WebRequest;
+import study.datajpa.repository.EntityVersion;
+import study.datajpa.repository.TableVersion;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * HTTP 조건부 GET (ETag / Last-Modified)
+ *
+ * WebRequest.checkNotModified 가 If-None-Match, If-Modified-Since 를 비교하여
+ * 변경이 없으면 304 를 설정하고 true 를 반환한다. 이때 컨트롤러는 본문 없이 null 을 반환한다.
+ * 변경이 있으면 ETag, Last-Modified 응답 헤더만 설정하고 false 를 반환한다.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    static boolean notModified(WebRequest request, EntityVersion version) {
+        return notModified(request, version.getVersion(), version.getLastModifiedDate());
+    }
+
+    static boolean notModified(WebRequest request, Long version, LocalDateTime lastModifiedDate) {
+        return request.checkNotModified("\"v" + version + "\"", epochMillis(lastModifiedDate));
+    }
+
+    /**
+     * 목록 응답 - 응답에 포함된 테이블들의 버전(ChangeTracker.versions)으로 ETag 를 만든다.
+     * 최종 수정일은 늦게 커밋된 트랜잭션이나 DB/JVM 시계 차이로 변경을 놓칠 수 있으므로 사용하지 않는다. (Last-Modified 없음)
+     */
+    static boolean notModified(WebRequest request, List<TableVersion> versions) {
+        StringBuilder etag = new StringBuilder("\"");
+        versions.stream()
+                .sorted(Comparator.comparing(TableVersion::getTableName))
+                .forEach(version -> {
+                    if (etag.length() > 1) {
+                        etag.append('-');
+                    }
+                    etag.append(version.getTableName()).append('.').append(version.getVersion());
+                });
+        return request.checkNotModified(etag.append('"').toString());
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime == null ? -1 : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -4,34 +4,143 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.config.ReadOnlyQuery;
+import study.datajpa.dto.Change;
+import study.datajpa.dto.ChangeWatermark;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberBatch;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.ChangeTable;
+import study.datajpa.repository.ChangeTracker;
+import study.datajpa.repository.CountStrategy;
+import study.datajpa.repository.EntityVersion;
+import study.datajpa.repository.MemberLookup;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberSort;
 
-import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 
+
+/**
+ * 조회 API 만 있으므로 요청 단위로 읽기 전용 트랜잭션을 사용한다. (content, count 쿼리가 같은 커넥션/트랜잭션에서 실행)
+ *
+ * OSIV(spring.jpa.open-in-view)를 끄므로 응답 직렬화는 트랜잭션(영속성 컨텍스트)이 끝난 뒤에 실행된다.
+ * 각 API 는 필요한 연관관계를 미리 조회(엔티티 그래프, fetch join)하거나 DTO 로 조회하고, 엔티티를 응답으로 반환하지 않는다.
+ *
+ * 조건부 GET - ETag/Last-Modified 를 먼저 프로브 쿼리로 확인하고, 변경이 없으면 엔티티를 조회하지 않고 304 를 반환한다.
+ */
 @RestController
 @RequiredArgsConstructor
+@ReadOnlyQuery
 public class MemberController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+    private static final int MAX_BATCH_IDS = 1000;
+    /**
+     * 목록 응답은 팀 이름을 포함하므로 팀 변경도 ETag 에 반영한다.
+     */
+    private static final List<ChangeTable> LIST_TABLES = List.of(ChangeTable.MEMBER, ChangeTable.TEAM);
+
     private final MemberRepository memberRepository;
+    private final ChangeTracker changeTracker;
+    private final MemberLookup memberLookup;
 
+    /**
+     * 같은 id 로 동시에 들어온 요청은 MemberLookup 에서 하나의 조회로 합쳐진다.
+     * 합치려면 트랜잭션 밖에서 조회해야 하므로 클래스의 읽기 전용 트랜잭션을 새로 시작하지 않는다. (프로브, 조회가 각각 실행)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     @GetMapping("/members/{id}")
-    public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).get();
+    public String findMember(@PathVariable("id") Long id, WebRequest request) {
+        EntityVersion version = memberRepository.findVersionById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (ConditionalGet.notModified(request, version)) {
+            return null;
+        }
+
+        Member member = memberLookup.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         return member.getUsername();
     }
 
+    /**
+     * 변경 피드 - 워터마크 이후 등록/수정/삭제된 회원을 (변경 순번, id) 순서로 조회한다.
+     *
+     * localhost:8080/members/changes?size=100                  (처음부터)
+     * localhost:8080/members/changes?since={응답의 next}&size=100
+     */
+    @GetMapping("/members/changes")
+    public CursorPage<Change<MemberDto>> changes(@RequestParam(value = "since", required = false) String since,
+                                                 @RequestParam(value = "size", defaultValue = "100") int size) {
+        ChangeWatermark watermark;
+        try {
+            watermark = since == null ? ChangeWatermark.INITIAL : ChangeWatermark.decode(since);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        return memberRepository.findChangesSince(watermark, pageSize)
+                .map(change -> change.map(MemberDto::withTeam));
+    }
+
+    /**
+     * 여러 회원을 한 번에 조회한다. (id 마다 /members/{id} 를 호출하는 대신)
+     *
+     * localhost:8080/members/batch?ids=3,1,2
+     *
+     * 영속성 컨텍스트/2차 캐시에 없는 회원만 IN 쿼리로 나누어 조회하고, team 은 함께 조회한다. (findAllByIdInOrder)
+     */
+    @GetMapping("/members/batch")
+    public MemberBatch batch(@RequestParam("ids") List<Long> ids) {
+        //ids=1,,2 처럼 빈 값은 null 로 바인딩된다.
+        if (ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must not contain empty values");
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.size() > MAX_BATCH_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "too many ids (max " + MAX_BATCH_IDS + ")");
+        }
+
+        List<Member> found = memberRepository.findAllByIdInOrder(distinctIds);
+        List<MemberDto> members = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            Member member = found.get(i);
+            if (member == null) {
+                missing.add(distinctIds.get(i));
+            } else {
+                members.add(MemberDto.withTeam(member));
+            }
+        }
+        return new MemberBatch(members, missing);
+    }
+
     /**
      * 도메일 클래스 컨버터가 중간에 동작하여 회원 엔티티 객체를 반환한다.
      *
      * 트랜잭션이 없는 범위에서 엔티티를 조회했으므로, 엔티티를 변경해도 DB에 반영되지 않는다.
+     * 엔티티는 이미 조회되었으므로 조건부 GET 은 응답 본문만 줄인다. (엔티티는 2차 캐시에서 조회)
+     * String -> Member 변환은 WebConfig 에서 MemberLookup 으로 등록하여, 동시에 들어온 같은 id 조회를 하나로 합친다.
      */
     @GetMapping("/members2/{id}")
-    public String findMember2(@PathVariable("id") Member member) {
+    public String findMember2(@PathVariable("id") Member member, WebRequest request) {
+        if (ConditionalGet.notModified(request, member.getVersion(), member.getLastModifiedDate())) {
+            return null;
+        }
         return member.getUsername();
     }
 
@@ -39,11 +148,21 @@ public class MemberController {
      * localhost:8080/members?page=0&size=3&sort=id,desc&sort=username@param pageable
      *
      * default 지정 가능 : public Page<Member> list(@PageableDefault(size = 10, sort = "id") Pageable pageable) {
+     *
+     * count=EXACT|CACHED|ESTIMATED 로 전체 건수 조회 방식을 선택한다. (기본값 EXACT)
+     *
+     * 조회 계획: Member.all 엔티티 그래프 (member + team)
      */
     @GetMapping("/members")
-    public Page<Member> list(Pageable pageable) {
+    public Page<MemberDto> list(Pageable pageable,
+                                @RequestParam(value = "count", defaultValue = "EXACT") CountStrategy countStrategy,
+                                WebRequest request) {
+        validateSort(pageable);
+        if (ConditionalGet.notModified(request, changeTracker.versions(LIST_TABLES))) {
+            return null;
+        }
 
-        return memberRepository.findAll(pageable);
+        return memberRepository.findAllWithTeam(pageable, countStrategy).map(MemberDto::withTeam);
     }
 
     /**
@@ -54,10 +173,51 @@ public class MemberController {
      *     직접 PageRequest(Pageable 구현체)를 생성하여 리포지토리에 넘긴다. (응답값도 Page 대신 직접 클래스를 만들어 제공해야 한다.)
      *  2. 'spring.data.web.pageable.one-indexed-parameters' true로 설정한다.
      *     이 방법은 web에서 page파라미터를 -1 처리 할 뿐이며, 응답값인 Page에 모두 0페이지 인덱스를 사용하는데 한계가 있다.
+     *
+     * 엔티티를 조회해서 변환하지 않고 MemberDto 로 바로 조회한다. (팀 이름 포함)
      */
     @GetMapping("/members2")
-    public Page<MemberDto> dtoList(@PageableDefault(size = 10, sort = "id") Pageable pageable) {
+    public Page<MemberDto> dtoList(@PageableDefault(size = 10, sort = "id") Pageable pageable,
+                                   @RequestParam(value = "count", defaultValue = "EXACT") CountStrategy countStrategy,
+                                   WebRequest request) {
+        validateSort(pageable);
+        if (ConditionalGet.notModified(request, changeTracker.versions(LIST_TABLES))) {
+            return null;
+        }
+
+        return memberRepository.findMemberDtoPage(pageable, countStrategy);
+    }
+
+    /**
+     * 키셋 페이징 - offset 페이징과 달리 깊은 페이지에서도 조회 비용이 일정하다.
+     *
+     * localhost:8080/members/cursor?size=20
+     * localhost:8080/members/cursor?cursor={응답의 next 또는 previous 토큰}&size=20
+     */
+    @GetMapping("/members/cursor")
+    public CursorPage<MemberDto> cursorList(@RequestParam(value = "cursor", required = false) String cursor,
+                                            @RequestParam(value = "size", defaultValue = "15") int size,
+                                            WebRequest request) {
+        MemberCursor memberCursor;
+        try {
+            memberCursor = cursor == null ? null : MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        if (ConditionalGet.notModified(request, changeTracker.versions(LIST_TABLES))) {
+            return null;
+        }
+
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        return memberRepository.findByCursor(memberCursor, pageSize).map(MemberDto::withTeam);
+    }
 
-        return memberRepository.findAll(pageable).map(MemberDto::new);
+    private static void validateSort(Pageable pageable) {
+        try {
+            MemberSort.validate(pageable.getSort());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 }
@@ -0,0 +1,126 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.config.ReadOnlyQuery;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 회원 전체 내보내기
+ *
+ * findAll() 처럼 List<Member> 를 만들지 않고, 커서로 읽은 행을 바로 응답에 쓴 뒤 detach 한다.
+ * fetchSize 건마다 응답을 flush 하므로 테이블 크기와 관계없이 메모리 사용량이 일정하다. (fetchSize 는 MAX_FETCH_SIZE 이하)
+ *
+ * localhost:8080/members/export?format=ndjson
+ * localhost:8080/members/export?format=csv&fetchSize=1000
+ */
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private static final int MAX_FETCH_SIZE = 5000;
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${datajpa.export.fetch-size:500}")
+    private int defaultFetchSize;
+
+    @ReadOnlyQuery
+    @GetMapping("/members/export")
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       @RequestParam(value = "fetchSize", required = false) Integer fetchSize,
+                       HttpServletResponse response) throws IOException {
+        int size = fetchSize == null || fetchSize <= 0 ? defaultFetchSize : Math.min(fetchSize, MAX_FETCH_SIZE);
+
+        if ("ndjson".equalsIgnoreCase(format)) {
+            response.setContentType("application/x-ndjson");
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            try (Stream<Member> members = memberRepository.streamAll(size)) {
+                writeNdjson(members.iterator(), size, response);
+            }
+        } else if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv");
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.csv\"");
+            try (Stream<Member> members = memberRepository.streamAll(size)) {
+                writeCsv(members.iterator(), size, response);
+            }
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported format: " + format);
+        }
+    }
+
+    private void writeNdjson(Iterator<Member> members, int flushInterval, HttpServletResponse response) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        int written = 0;
+        while (members.hasNext()) {
+            Member member = members.next();
+            generator.writeStartObject();
+            generator.writeNumberField("id", member.getId());
+            generator.writeStringField("username", member.getUsername());
+            generator.writeNumberField("age", member.getAge());
+            generator.writeEndObject();
+            memberRepository.detach(member);
+
+            if (++written % flushInterval == 0) {
+                generator.flush();
+            }
+        }
+        if (written > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private void writeCsv(Iterator<Member> members, int flushInterval, HttpServletResponse response) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        writer.write("id,username,age\n");
+        int written = 0;
+        while (members.hasNext()) {
+            Member member = members.next();
+            writer.write(String.valueOf(member.getId()));
+            writer.write(',');
+            writer.write(csvValue(member.getUsername()));
+            writer.write(',');
+            writer.write(String.valueOf(member.getAge()));
+            writer.write('\n');
+            memberRepository.detach(member);
+
+            if (++written % flushInterval == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
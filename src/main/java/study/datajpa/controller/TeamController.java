@@ -0,0 +1,114 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.config.ReadOnlyQuery;
+import study.datajpa.dto.Change;
+import study.datajpa.dto.ChangeWatermark;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.TeamDto;
+import study.datajpa.dto.TeamSummaryDto;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.ChangeFeedSupport;
+import study.datajpa.repository.ChangeTable;
+import study.datajpa.repository.ChangeTracker;
+import study.datajpa.repository.EntityVersion;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.repository.TeamSummaryRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 조회 API 만 있으므로 요청 단위로 읽기 전용 트랜잭션을 사용한다.
+ * 조건부 GET 은 MemberController 와 같다. (프로브 쿼리 -> 304 또는 조회)
+ */
+@RestController
+@RequiredArgsConstructor
+@ReadOnlyQuery
+public class TeamController {
+
+    private static final int MAX_CHANGES_SIZE = 2000;
+    private static final List<ChangeTable> LIST_TABLES = List.of(ChangeTable.TEAM);
+
+    private final TeamRepository teamRepository;
+    private final ChangeFeedSupport changeFeedSupport;
+    private final TeamSummaryRepository teamSummaryRepository;
+    private final ChangeTracker changeTracker;
+
+    @GetMapping("/teams/{id}")
+    public TeamDto findTeam(@PathVariable("id") Long id, WebRequest request) {
+        EntityVersion version = teamRepository.findVersionById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (ConditionalGet.notModified(request, version)) {
+            return null;
+        }
+
+        return teamRepository.findById(id).map(TeamDto::new)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    @GetMapping("/teams")
+    public Page<TeamDto> list(@PageableDefault(size = 10, sort = "id") Pageable pageable, WebRequest request) {
+        if (ConditionalGet.notModified(request, changeTracker.versions(LIST_TABLES))) {
+            return null;
+        }
+
+        return teamRepository.findAll(pageable).map(TeamDto::new);
+    }
+
+    /**
+     * 팀 요약 (회원 수, 나이 분포, 마지막 활동) - member 를 집계하지 않고 미리 계산된 TeamSummary 를 조회한다.
+     */
+    @GetMapping("/teams/{id}/summary")
+    public TeamSummaryDto summary(@PathVariable("id") Long id) {
+        return teamSummaryRepository.findById(id).map(TeamSummaryDto::new)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * 회원 수가 많은 순서의 팀 요약
+     *
+     * localhost:8080/teams/summary?size=10
+     */
+    @GetMapping("/teams/summary")
+    public List<TeamSummaryDto> largest(@RequestParam(value = "size", defaultValue = "10") int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CHANGES_SIZE));
+        return teamSummaryRepository.findLargest(PageRequest.of(0, pageSize)).stream()
+                .map(TeamSummaryDto::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 변경 피드 - 워터마크 이후 등록/수정/삭제된 팀을 (변경 순번, id) 순서로 조회한다.
+     *
+     * localhost:8080/teams/changes?since={응답의 next}&size=100
+     */
+    @GetMapping("/teams/changes")
+    public CursorPage<Change<TeamDto>> changes(@RequestParam(value = "since", required = false) String since,
+                                               @RequestParam(value = "size", defaultValue = "100") int size) {
+        ChangeWatermark watermark;
+        try {
+            watermark = since == null ? ChangeWatermark.INITIAL : ChangeWatermark.decode(since);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        int pageSize = Math.max(1, Math.min(size, MAX_CHANGES_SIZE));
+        long until = changeFeedSupport.until();
+        List<Object[]> changed = teamRepository.findChangesSince(watermark.getChangeSeq(), watermark.getId(), until,
+                PageRequest.of(0, pageSize));
+        return changeFeedSupport.merge(Team.class, changed, Team::getId, Team::getLastModifiedDate, watermark, until, pageSize)
+                .map(change -> change.map(TeamDto::new));
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BulkInsertResult {
+
+    private final int count;
+    private final long elapsedNanos;
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * 초당 INSERT 건수
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
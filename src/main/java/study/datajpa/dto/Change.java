@@ -0,0 +1,44 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * 변경 피드 항목 - 변경(등록/수정)이면 data 에 엔티티(DTO)를, 삭제면 deleted = true, data = null 이다.
+ * changeSeq 는 변경을 커밋한 순서, modifiedDate 는 참고용 변경 시각이다.
+ */
+@Getter
+public class Change<T> {
+
+    private final Long id;
+    private final Long changeSeq;
+    private final LocalDateTime modifiedDate;
+    private final boolean deleted;
+    private final T data;
+
+    private Change(Long id, Long changeSeq, LocalDateTime modifiedDate, boolean deleted, T data) {
+        this.id = id;
+        this.changeSeq = changeSeq;
+        this.modifiedDate = modifiedDate;
+        this.deleted = deleted;
+        this.data = data;
+    }
+
+    public static <T> Change<T> upsert(Long id, Long changeSeq, LocalDateTime modifiedDate, T data) {
+        return new Change<>(id, changeSeq, modifiedDate, false, data);
+    }
+
+    public static <T> Change<T> delete(Long id, Long changeSeq, LocalDateTime deletedDate) {
+        return new Change<>(id, changeSeq, deletedDate, true, null);
+    }
+
+    public ChangeWatermark watermark() {
+        return ChangeWatermark.of(changeSeq, id);
+    }
+
+    public <R> Change<R> map(Function<? super T, ? extends R> converter) {
+        return new Change<>(id, changeSeq, modifiedDate, deleted, data == null ? null : converter.apply(data));
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 변경 피드 워터마크 - (변경 순번, id) 이후의 변경을 조회한다.
+ *  - 안전 워터마크 이하만 조회하므로(ChangeFeedSupport), 늦게 커밋된 변경이 이미 지나간 워터마크 앞에 나타나지 않는다.
+ *  - 한 트랜잭션의 변경은 같은 순번이므로, 페이지 경계에 걸려도 id 로 이어서 조회하여 빠지거나 중복되지 않는다.
+ *  - REST 응답에는 encode() 결과인 불투명 토큰만 노출한다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ChangeWatermark {
+
+    /**
+     * 처음부터 조회 (전체 동기화)
+     */
+    public static final ChangeWatermark INITIAL = new ChangeWatermark(0L, 0L);
+
+    private final Long changeSeq;
+    private final Long id;
+
+    public static ChangeWatermark of(Long changeSeq, Long id) {
+        return new ChangeWatermark(changeSeq, id);
+    }
+
+    public String encode() {
+        String raw = changeSeq + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException 토큰 형식이 올바르지 않은 경우
+     */
+    public static ChangeWatermark decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("malformed watermark: " + raw);
+            }
+            return new ChangeWatermark(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid watermark token: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 키셋 페이징 결과
+ *  - Page 와 달리 totalCount 를 구하지 않고, 다음/이전 페이지 커서 토큰만 제공한다.
+ *  - 더 이상 이동할 페이지가 없으면 토큰은 null 이다.
+ */
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String next;
+    private final String previous;
+
+    public CursorPage(List<T> content, String next, String previous) {
+        this.content = content;
+        this.next = next;
+        this.previous = previous;
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> converter) {
+        return new CursorPage<>(content.stream().map(converter).collect(Collectors.toList()), next, previous);
+    }
+}
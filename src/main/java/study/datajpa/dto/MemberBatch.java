@@ -0,0 +1,22 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 여러 id 조회 결과
+ *  - members 는 요청한 id 순서대로, 조회된 회원만 담는다. (같은 id 는 한 번만)
+ *  - missing 은 없는 id 를 요청한 순서대로 담는다.
+ */
+@Getter
+public class MemberBatch {
+
+    private final List<MemberDto> members;
+    private final List<Long> missing;
+
+    public MemberBatch(List<MemberDto> members, List<Long> missing) {
+        this.members = members;
+        this.missing = missing;
+    }
+}
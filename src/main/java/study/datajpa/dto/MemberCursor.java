@@ -0,0 +1,61 @@
+package study.datajpa.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import study.datajpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징 커서
+ *  - 정렬 키(age)와 member_id 를 함께 기억하여 offset 없이 다음/이전 페이지를 조회한다.
+ *  - REST 응답에는 encode() 결과인 불투명 토큰만 노출한다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+    private static final String NEXT = "n";
+    private static final String PREVIOUS = "p";
+
+    private final int age;
+    private final Long id;
+    private final boolean forward;
+
+    /**
+     * member 이후(age, id 오름차순) 페이지를 가리키는 커서
+     */
+    public static MemberCursor after(Member member) {
+        return new MemberCursor(member.getAge(), member.getId(), true);
+    }
+
+    /**
+     * member 이전 페이지를 가리키는 커서
+     */
+    public static MemberCursor before(Member member) {
+        return new MemberCursor(member.getAge(), member.getId(), false);
+    }
+
+    public String encode() {
+        String raw = (forward ? NEXT : PREVIOUS) + ":" + age + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException 토큰 형식이 올바르지 않은 경우
+     */
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 || !(NEXT.equals(parts[0]) || PREVIOUS.equals(parts[0]))) {
+                throw new IllegalArgumentException("malformed cursor: " + raw);
+            }
+            return new MemberCursor(Integer.parseInt(parts[1]), Long.parseLong(parts[2]), NEXT.equals(parts[0]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid cursor token: " + token, e);
+        }
+    }
+}
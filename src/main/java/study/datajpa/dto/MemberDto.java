@@ -3,6 +3,7 @@ package study.datajpa.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
 
 import java.util.Objects;
 
@@ -18,6 +19,15 @@ public class MemberDto {
         this.id = member.getId();
         this.username = member.getUsername();
     }
+
+    /**
+     * team 을 함께 조회한(fetch join, 엔티티 그래프) 회원만 사용한다.
+     * 지연 로딩 프록시면 트랜잭션 밖에서 LazyInitializationException 이 발생한다.
+     */
+    public static MemberDto withTeam(Member member) {
+        Team team = member.getTeam();
+        return new MemberDto(member.getId(), member.getUsername(), team != null ? team.getName() : null);
+    }
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
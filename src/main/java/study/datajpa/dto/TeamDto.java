@@ -0,0 +1,18 @@
+package study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import study.datajpa.entity.Team;
+
+@Data
+@AllArgsConstructor
+public class TeamDto {
+
+    private Long id;
+    private String name;
+
+    public TeamDto(Team team) {
+        this.id = team.getId();
+        this.name = team.getName();
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+import study.datajpa.entity.TeamSummary;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+public class TeamSummaryDto {
+
+    private Long teamId;
+    private long memberCount;
+    private Map<String, Long> ageHistogram;
+    private LocalDateTime lastActivity;
+
+    public TeamSummaryDto(TeamSummary summary) {
+        this.teamId = summary.getTeamId();
+        this.memberCount = summary.getMemberCount();
+        this.ageHistogram = summary.getAgeHistogram();
+        this.lastActivity = summary.getLastActivity();
+    }
+}
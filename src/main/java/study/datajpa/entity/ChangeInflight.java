@@ -0,0 +1,32 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * 순번을 발급받고 아직 커밋/롤백되지 않은 트랜잭션 - 변경 피드는 가장 오래된 진행 중 순번 바로 아래까지만 조회한다.
+ *
+ * 순번은 커밋 직전에 발급하므로 행은 변경 순번 기록과 커밋 동안에만 남는다. 트랜잭션이 끝나면 ChangeTracker 가 지운다.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class ChangeInflight {
+
+    @Id
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+}
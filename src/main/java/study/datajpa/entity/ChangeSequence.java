@@ -0,0 +1,36 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * 변경 피드 순번 발급기 - 한 행
+ *
+ * ChangeTracker 가 커밋 직전에 별도 커넥션의 짧은 트랜잭션에서 1 올리고, 같은 트랜잭션에서 ChangeInflight 를 등록한다.
+ * 발급과 진행 중 등록이 함께 커밋되므로, 발급된 순번은 모두 진행 중이거나 이미 끝난 트랜잭션의 것이다.
+ * (DB 시퀀스는 값이 바로 보이지만 진행 중 등록은 커밋 후에 보이므로, 그 사이에 읽은 워터마크가 진행 중인 순번을 넘을 수 있다.)
+ * ChangeTracker 가 SQL 로 갱신하므로 JPA 로는 변경하지 않는다. (@Immutable)
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class ChangeSequence {
+
+    public static final String NAME = "change";
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+}
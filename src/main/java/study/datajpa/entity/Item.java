@@ -28,6 +28,13 @@ public class Item implements Persistable<Long> {
         this.id = id;
     }
 
+    /**
+     * 엔티티 리스너를 거치지 않고 INSERT 한 경우 생성일을 직접 채워 isNew() 가 false 가 되도록 한다.
+     */
+    public void initCreatedDate(LocalDateTime createdDate) {
+        this.createdDate = createdDate;
+    }
+
     @Override
     public Long getId() {
         return id;
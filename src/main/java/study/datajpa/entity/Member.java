@@ -1,8 +1,14 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
@@ -19,20 +25,67 @@ import java.util.Objects;
         query = "select m from Member m where m.username = :username"
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+/**
+ * username, age        - findByUsername, findByUsernameAndAgeGreaterThan, findUser, findByNames
+ * age, member_id       - findByAge(페이징), 키셋 페이징 (age, member_id) 정렬/범위 조건
+ * team_id              - team 조인, 팀별 회원 조회
+ * change_seq           - 변경 피드 (changeSeq, member_id) 키셋 조건
+ * claimed_by, claimed_at, member_id - claimBatch 선점되지 않은 회원 (claimed_by is null, member_id 순)
+ * claimed_at, member_id - claimBatch 선점 기한이 지난 회원 (claimed_at 범위)
+ * 쿼리 실행 계획은 QueryPlanTest 에서 검증한다.
+ */
+@Table(indexes = {
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_age_id", columnList = "age, member_id"),
+        @Index(name = "idx_member_team_id", columnList = "team_id"),
+        @Index(name = "idx_member_change_seq", columnList = "change_seq, member_id"),
+        @Index(name = "idx_member_claim", columnList = "claimed_by, claimed_at, member_id"),
+        @Index(name = "idx_member_claimed_at", columnList = "claimed_at, member_id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 //public class Member extends JpaBaseEntity { //순수 JPA
 public class Member extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @GenericGenerator(
+            name = "member_seq_generator",
+            strategy = "study.datajpa.config.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq")
+    )
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    /**
+     * 낙관적 락 - 변경 시 "where version = ?" 조건으로 갱신하고, 갱신된 행이 없으면 충돌(OptimisticLockException)
+     */
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
 
+    /**
+     * 변경 피드 순번 - 커밋 직전에 ChangeTracker 가 발급받아 SQL 로 기록한다.
+     * JPA 로는 쓰지 않고, 영속성 컨텍스트/2차 캐시의 값은 최신이 아닐 수 있으므로 변경 피드는 쿼리에서 직접 읽는다.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
+    /**
+     * 작업 선점 - MemberRepositoryCustom.claimBatch 로 워커가 선점한 회원
+     */
+    @Setter(AccessLevel.NONE)
+    private String claimedBy;
+    @Setter(AccessLevel.NONE)
+    private LocalDateTime claimedAt;
+
     public Member(String username) {
         this.username = username;
     }
@@ -48,6 +101,18 @@ public class Member extends BaseEntity {
         this.age = age;
     }
 
+    /**
+     * 선점되지 않았거나 선점 기한(expiredBefore 이전에 선점)이 지난 경우에만 선점한다.
+     */
+    public boolean claim(String workerId, LocalDateTime now, LocalDateTime expiredBefore) {
+        if (claimedBy != null && !claimedAt.isBefore(expiredBefore)) {
+            return false;
+        }
+        this.claimedBy = workerId;
+        this.claimedAt = now;
+        return true;
+    }
+
     public void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
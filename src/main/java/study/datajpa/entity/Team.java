@@ -1,6 +1,12 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,14 +16,37 @@ import java.util.List;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = @Index(name = "idx_team_change_seq", columnList = "change_seq, team_id"))
 public class Team extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @GenericGenerator(
+            name = "team_seq_generator",
+            strategy = "study.datajpa.config.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq")
+    )
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    /**
+     * 변경 피드 순번 (Member.changeSeq 와 같음)
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
+    /**
+     * 연관관계의 주인이 아니므로 Member.changeTeam 으로 컬렉션이 바뀌어도 Team 의 version 은 올리지 않는다.
+     */
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
@@ -0,0 +1,74 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 팀 요약(읽기 모델) - 회원 수, 나이 분포(10살 단위, 60 이상은 하나로), 마지막 활동 시각
+ *
+ * 조회할 때마다 member 를 집계(또는 Team.members 초기화)하지 않도록 미리 계산해 둔다.
+ * TeamSummaryUpdater 가 회원 등록/수정/삭제/벌크 연산 때 증분으로 SQL 갱신하므로 JPA 로는 변경하지 않는다. (@Immutable)
+ * team 과 외래 키로 묶지 않는다. (팀 벌크 삭제를 막지 않도록, 남은 요약은 일관성 검사에서 정리)
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"teamId", "memberCount", "lastActivity"})
+public class TeamSummary {
+
+    public static final int BUCKETS = 7;
+    public static final String[] BUCKET_COLUMNS = {
+            "age_under_10", "age_10s", "age_20s", "age_30s", "age_40s", "age_50s", "age_60_plus"
+    };
+    private static final String[] BUCKET_LABELS = {"0-9", "10-19", "20-29", "30-39", "40-49", "50-59", "60+"};
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private long memberCount;
+
+    @Column(name = "age_under_10")
+    private long ageUnder10;
+    @Column(name = "age_10s")
+    private long age10s;
+    @Column(name = "age_20s")
+    private long age20s;
+    @Column(name = "age_30s")
+    private long age30s;
+    @Column(name = "age_40s")
+    private long age40s;
+    @Column(name = "age_50s")
+    private long age50s;
+    @Column(name = "age_60_plus")
+    private long age60Plus;
+
+    private LocalDateTime lastActivity;
+
+    /**
+     * 나이가 속한 구간 (BUCKET_COLUMNS 의 인덱스)
+     */
+    public static int bucket(int age) {
+        return Math.max(0, Math.min(age / 10, BUCKETS - 1));
+    }
+
+    public Map<String, Long> getAgeHistogram() {
+        long[] counts = {ageUnder10, age10s, age20s, age30s, age40s, age50s, age60Plus};
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.put(BUCKET_LABELS[i], counts[i]);
+        }
+        return histogram;
+    }
+}
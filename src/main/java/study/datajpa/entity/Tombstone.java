@@ -0,0 +1,40 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 삭제 기록 - 변경 피드(changes since)에서 삭제된 엔티티를 알려주기 위해 남긴다.
+ *
+ * 엔티티 삭제(em.remove)와 리포지토리 배치 삭제(deleteAllInBatch 등) 모두 ChangeTracker 가 커밋 직전에
+ * 같은 트랜잭션에서 변경 피드 순번(changeSeq)과 함께 JDBC 로 기록한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"id", "entityType", "entityId", "changeSeq"})
+@Table(indexes = @Index(name = "idx_tombstone_type_seq", columnList = "entity_type, change_seq, entity_id"))
+public class Tombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "tombstone_id")
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_date", nullable = false)
+    private LocalDateTime deletedDate;
+}
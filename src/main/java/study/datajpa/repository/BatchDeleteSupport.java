@@ -0,0 +1,71 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 리포지토리 배치 삭제(deleteAllInBatch, deleteAllByIdInBatch) - JPQL 벌크 삭제에도 Tombstone 을 남긴다.
+ *
+ * 벌크 삭제는 엔티티 이벤트가 없으므로, 삭제할 행을 먼저 잠그고(select ... for update) 실제로 있는 id 만 삭제한 뒤
+ * ChangeTracker 에 등록한다. 잠근 행만 삭제하므로 기록한 id 와 삭제된 행이 같다.
+ *  - deleteAllInBatch() 는 그 시점에 있는 행을 모두 잠그고 id 를 메모리에 올린다.
+ *  - IN 절은 chunk-size 단위로 나누어 실행한다. (InListQuerySupport)
+ *  - SimpleJpaRepository 와 같이 영속성 컨텍스트는 비우지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class BatchDeleteSupport {
+
+    private final InListQuerySupport inListQuerySupport;
+    private final ChangeTracker changeTracker;
+
+    public void deleteAll(EntityManager em, ChangeTable table) {
+        em.flush();
+        List<?> rows = em.createNativeQuery("select " + table.getIdColumn() + " from " + table.getTableName() + " for update")
+                .getResultList();
+        delete(em, table, toLongs(rows));
+    }
+
+    public void deleteAllById(EntityManager em, ChangeTable table, Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.isEmpty()) {
+            return;
+        }
+        em.flush();
+        List<Long> locked = new ArrayList<>(distinctIds.size());
+        for (List<Long> chunk : inListQuerySupport.chunks(distinctIds)) {
+            List<?> rows = em.createNativeQuery("select " + table.getIdColumn() + " from " + table.getTableName() +
+                            " where " + table.getIdColumn() + " in (:ids) for update")
+                    .setParameter("ids", chunk)
+                    .getResultList();
+            locked.addAll(toLongs(rows));
+        }
+        delete(em, table, locked);
+    }
+
+    private void delete(EntityManager em, ChangeTable table, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (List<Long> chunk : inListQuerySupport.chunks(ids)) {
+            em.createQuery("delete from " + table.getEntityName() + " e where e.id in :ids")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        changeTracker.recordDeletes(em, table, ids);
+    }
+
+    private static List<Long> toLongs(List<?> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            ids.add(((Number) row).longValue());
+        }
+        return ids;
+    }
+}
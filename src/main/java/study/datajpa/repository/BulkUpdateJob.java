@@ -0,0 +1,107 @@
+package study.datajpa.repository;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 청크 단위 벌크 업데이트의 진행 상태
+ *  - 청크마다 별도 트랜잭션으로 실행되므로, 실패한 청크는 롤백되어 있고 완료된 청크만 반영되어 있다.
+ *  - MemberBulkUpdateExecutor.resume(job) 으로 완료되지 않은 청크만 다시 실행할 수 있다.
+ */
+@Getter
+public class BulkUpdateJob {
+
+    private final int age;
+    private final List<Chunk> chunks;
+
+    @Getter(AccessLevel.NONE)
+    private final Set<Chunk> completed = ConcurrentHashMap.newKeySet();
+    @Getter(AccessLevel.NONE)
+    private final Map<Chunk, Throwable> failures = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong updatedRows = new AtomicLong();
+
+    private BulkUpdateJob(int age, List<Chunk> chunks) {
+        this.age = age;
+        this.chunks = Collections.unmodifiableList(chunks);
+    }
+
+    /**
+     * [minId, maxId] 범위를 chunkSize 크기의 member_id 구간으로 나눈다.
+     * chunkSize 가 0 이하이면 구간이 끝나지 않으므로 허용하지 않는다.
+     */
+    public static BulkUpdateJob of(int age, Long minId, Long maxId, long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        if (minId != null && maxId != null) {
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                chunks.add(new Chunk(from, Math.min(from + chunkSize - 1, maxId)));
+            }
+        }
+        return new BulkUpdateJob(age, chunks);
+    }
+
+    public List<Chunk> pendingChunks() {
+        return chunks.stream()
+                .filter(chunk -> !completed.contains(chunk))
+                .collect(Collectors.toList());
+    }
+
+    void complete(Chunk chunk, int updated) {
+        failures.remove(chunk);
+        if (completed.add(chunk)) {
+            updatedRows.addAndGet(updated);
+        }
+    }
+
+    void fail(Chunk chunk, Throwable cause) {
+        failures.put(chunk, cause);
+    }
+
+    public int getTotalChunks() {
+        return chunks.size();
+    }
+
+    public int getCompletedChunks() {
+        return completed.size();
+    }
+
+    public int getFailedChunks() {
+        return failures.size();
+    }
+
+    public Map<Chunk, Throwable> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public long getUpdatedRows() {
+        return updatedRows.get();
+    }
+
+    public boolean isFinished() {
+        return completed.size() == chunks.size();
+    }
+
+    @Getter
+    @ToString
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    public static class Chunk {
+        private final long fromId;
+        private final long toId;
+    }
+}
@@ -0,0 +1,66 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.Change;
+import study.datajpa.dto.ChangeWatermark;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.entity.Tombstone;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 변경 피드 - 변경된 엔티티와 삭제 기록(Tombstone)을 (변경 순번, id) 순서로 합친다.
+ *
+ * 변경 순번(change_seq)은 ChangeTracker 가 커밋 직전에 발급한 값이다. 발급 순서와 커밋 순서는 다를 수 있으므로
+ * 안전 워터마크(가장 오래된 진행 중 순번 바로 아래, until) 이하만 조회한다. 그 이하의 순번은 더 이상 나타나지 않으므로
+ * 시각 기반의 지연(safety lag) 없이 빠짐없이 이어서 조회할 수 있다.
+ * 다음 워터마크(next)는 항상 반환하며, 변경이 없으면 받은 워터마크를 그대로 돌려준다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeFeedSupport {
+
+    private static final Comparator<Change<?>> ORDER = Comparator
+            .comparing((Change<?> change) -> change.getChangeSeq())
+            .thenComparing(Change::getId);
+
+    private final TombstoneRepository tombstoneRepository;
+    private final ChangeTracker changeTracker;
+
+    /**
+     * 안전 워터마크 - 변경과 삭제 조회에 같은 값을 사용해야 한다.
+     */
+    public long until() {
+        return changeTracker.safeWatermark();
+    }
+
+    /**
+     * @param changed 워터마크 이후 until 이하를 (변경 순번, id) 순서로 최대 size 건 조회한 [엔티티, 변경 순번]
+     */
+    public <T> CursorPage<Change<T>> merge(Class<T> entityType, List<Object[]> changed,
+                                           Function<T, Long> id, Function<T, LocalDateTime> modifiedDate,
+                                           ChangeWatermark since, long until, int size) {
+        List<Tombstone> tombstones = tombstoneRepository.findSince(entityType.getSimpleName(),
+                since.getChangeSeq(), since.getId(), until, PageRequest.of(0, size));
+
+        List<Change<T>> changes = new ArrayList<>(changed.size() + tombstones.size());
+        for (Object[] row : changed) {
+            T entity = entityType.cast(row[0]);
+            changes.add(Change.upsert(id.apply(entity), (Long) row[1], modifiedDate.apply(entity), entity));
+        }
+        for (Tombstone tombstone : tombstones) {
+            changes.add(Change.delete(tombstone.getEntityId(), tombstone.getChangeSeq(), tombstone.getDeletedDate()));
+        }
+        changes.sort(ORDER);
+
+        List<Change<T>> content = changes.size() > size ? new ArrayList<>(changes.subList(0, size)) : changes;
+        ChangeWatermark next = content.isEmpty() ? since : content.get(content.size() - 1).watermark();
+        return new CursorPage<>(content, next.encode(), null);
+    }
+}
@@ -0,0 +1,33 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+/**
+ * 변경 피드/목록 ETag 로 추적하는 테이블 - 테이블 이름, id 컬럼, 엔티티 (Tombstone.entityType)
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ChangeTable {
+    MEMBER("member", "member_id", Member.class),
+    TEAM("team", "team_id", Team.class);
+
+    private final String tableName;
+    private final String idColumn;
+    private final Class<?> entityType;
+
+    public String getEntityName() {
+        return entityType.getSimpleName();
+    }
+
+    static ChangeTable of(Object entity) {
+        for (ChangeTable table : values()) {
+            if (table.entityType.isInstance(entity)) {
+                return table;
+            }
+        }
+        return null;
+    }
+}
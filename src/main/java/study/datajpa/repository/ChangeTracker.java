@@ -0,0 +1,372 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.ChangeSequence;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 변경 피드 순번(change_seq) 기록과 안전 워터마크
+ *
+ * 회원/팀 등록/수정/삭제 이벤트에서 변경된 id 만 모아 두고, 커밋 직전에
+ *  1. 별도 커넥션의 짧은 트랜잭션에서 순번을 발급받아 진행 중(ChangeInflight)으로 등록하고 바로 커밋한 뒤
+ *  2. 업무 트랜잭션에서 등록/수정된 행의 change_seq 에 순번을 기록하고, 삭제된 id 는 Tombstone 으로 기록한다.
+ *  3. 업무 트랜잭션이 커밋/롤백되면 진행 중 등록을 지운다.
+ * 순번 발급기(ChangeSequence) 행은 발급하는 짧은 트랜잭션 동안에만 잠기므로, 쓰기 트랜잭션이 커밋 때 서로를 기다리지 않는다.
+ *
+ * 순번은 커밋 순서와 다를 수 있으므로 읽는 쪽은 안전 워터마크(가장 오래된 진행 중 순번 바로 아래)까지만 조회한다.
+ * 워터마크 이하의 순번은 모두 커밋(또는 롤백)되어 있으므로 이후에 더 작은 순번이 나타나지 않는다.
+ *
+ *  - 벌크 연산/배치 삭제는 엔티티 이벤트가 없으므로 recordUpserts, recordDeletes 로 직접 등록한다.
+ *  - 선점(claimedBy, claimedAt)과 감사 필드만 바뀐 수정은 회원 데이터(MemberDto)가 바뀌지 않으므로 기록하지 않는다.
+ *  - 진행 중 등록을 지우지 못하고 프로세스가 종료되면 orphan-timeout-ms 뒤에 지운다.
+ *    순번은 커밋 직전에 발급하므로 살아 있는 트랜잭션의 등록은 순번 기록과 커밋 동안만 남는다.
+ *  - 순수 JPA 예제(MemberJpaRepository)의 벌크 연산은 기록하지 않는다.
+ */
+@Slf4j
+@Component
+public class ChangeTracker implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String SEED_SQL = "insert into change_sequence (name, last_seq)" +
+            " select ?, 0 from dual where not exists (select 1 from change_sequence where name = ?)";
+    private static final String NEXT_SQL = "update change_sequence set last_seq = last_seq + 1 where name = ?";
+    private static final String CURRENT_SQL = "select last_seq from change_sequence where name = ?";
+    private static final String INFLIGHT_SQL = "insert into change_inflight (seq, started_at) values (?, ?)";
+    private static final String RELEASE_SQL = "delete from change_inflight where seq = ?";
+    private static final String OLDEST_SQL = "select min(seq) from change_inflight";
+    private static final String TOMBSTONE_SQL =
+            "insert into tombstone (entity_type, entity_id, change_seq, deleted_date) values (?, ?, ?, ?)";
+
+    /**
+     * 수정되어도 변경 피드에 기록하지 않는 필드 - 선점과 감사 필드
+     */
+    private static final Set<String> UNTRACKED_PROPERTIES =
+            Set.of("claimedBy", "claimedAt", "lastModifiedDate", "lastModifiedBy");
+
+    private final EntityManagerFactory emf;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource sequenceDataSource;
+    private final Duration orphanTimeout;
+
+    private final Map<SharedSessionContractImplementor, Pending> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 발급 전용 커넥션 - 업무 트랜잭션과 별개로 커밋해야 하고, 커넥션 풀이 모두 사용 중일 때도 발급할 수 있어야 한다.
+     */
+    private Connection sequenceConnection;
+
+    public ChangeTracker(EntityManagerFactory emf,
+                         JdbcTemplate jdbcTemplate,
+                         DataSourceProperties dataSourceProperties,
+                         @Value("${datajpa.change-feed.orphan-timeout-ms:600000}") long orphanTimeoutMs) {
+        this.emf = emf;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build();
+        this.orphanTimeout = Duration.ofMillis(orphanTimeoutMs);
+    }
+
+    @PostConstruct
+    public void register() {
+        jdbcTemplate.update(SEED_SQL, ChangeSequence.NAME, ChangeSequence.NAME);
+
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.prependListeners(EventType.POST_INSERT, this);
+        registry.prependListeners(EventType.POST_UPDATE, this);
+        registry.prependListeners(EventType.POST_DELETE, this);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closeSequenceConnection();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        ChangeTable table = ChangeTable.of(event.getEntity());
+        if (table != null) {
+            pending(event.getSession()).upsert(table, (Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        ChangeTable table = ChangeTable.of(event.getEntity());
+        if (table != null && tracked(event)) {
+            pending(event.getSession()).upsert(table, (Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        ChangeTable table = ChangeTable.of(event.getEntity());
+        if (table != null) {
+            pending(event.getSession()).delete(table, (Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 엔티티 이벤트 없이 변경한 행(벌크 연산) - 호출한 트랜잭션이 이미 잠근 행이어야 한다.
+     */
+    public void recordUpserts(EntityManager em, ChangeTable table, Collection<Long> ids) {
+        Pending pending = pending((EventSource) em.unwrap(Session.class));
+        ids.forEach(id -> pending.upsert(table, id));
+    }
+
+    /**
+     * 엔티티 이벤트 없이 삭제한 행(배치 삭제) - 커밋 직전에 Tombstone 으로 기록한다.
+     */
+    public void recordDeletes(EntityManager em, ChangeTable table, Collection<Long> ids) {
+        Pending pending = pending((EventSource) em.unwrap(Session.class));
+        ids.forEach(id -> pending.delete(table, id));
+    }
+
+    /**
+     * 안전 워터마크 - 이 순번 이하의 변경은 모두 커밋(또는 롤백)되어 있다.
+     * 발급된 마지막 순번을 먼저 읽고 진행 중 순번을 읽는다. 반대로 읽으면 그 사이에 발급된 순번을 놓친다.
+     */
+    public long safeWatermark() {
+        Long last = jdbcTemplate.queryForObject(CURRENT_SQL, Long.class, ChangeSequence.NAME);
+        Long oldest = jdbcTemplate.queryForObject(OLDEST_SQL, Long.class);
+        return oldest == null ? last : Math.min(last, oldest - 1);
+    }
+
+    /**
+     * 목록 ETag 용 테이블 버전 - 안전 워터마크 이하에서 행과 삭제 기록의 가장 큰 순번 (idx_*_change_seq, idx_tombstone_type_seq)
+     * 워터마크가 올라가며 새로 보이는 변경은 이전 워터마크보다 큰 순번이므로 버전이 항상 바뀐다.
+     */
+    public List<TableVersion> versions(List<ChangeTable> tables) {
+        long watermark = safeWatermark();
+        List<TableVersion> versions = new ArrayList<>(tables.size());
+        for (ChangeTable table : tables) {
+            Long version = jdbcTemplate.queryForObject("select greatest(" +
+                            "coalesce((select max(change_seq) from " + table.getTableName() + " where change_seq <= ?), 0), " +
+                            "coalesce((select max(change_seq) from tombstone where entity_type = ? and change_seq <= ?), 0))",
+                    Long.class, watermark, table.getEntityName(), watermark);
+            versions.add(new TableVersion(table.getTableName(), version));
+        }
+        return versions;
+    }
+
+    /**
+     * 종료된 프로세스가 남긴 진행 중 등록을 지운다. 지우지 않으면 안전 워터마크가 더 이상 올라가지 않는다.
+     */
+    @Scheduled(fixedDelayString = "${datajpa.change-feed.orphan-timeout-ms:600000}")
+    public void removeOrphans() {
+        int removed = jdbcTemplate.update("delete from change_inflight where started_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(orphanTimeout)));
+        if (removed > 0) {
+            log.warn("removed {} orphaned in-flight change sequences", removed);
+        }
+    }
+
+    /**
+     * 순번 발급 + 진행 중 등록을 한 트랜잭션으로 커밋한다.
+     */
+    synchronized long allocate() throws SQLException {
+        Connection connection = sequenceConnection();
+        try {
+            try (PreparedStatement update = connection.prepareStatement(NEXT_SQL)) {
+                update.setString(1, ChangeSequence.NAME);
+                update.executeUpdate();
+            }
+            long seq;
+            try (PreparedStatement select = connection.prepareStatement(CURRENT_SQL)) {
+                select.setString(1, ChangeSequence.NAME);
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    seq = rs.getLong(1);
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(INFLIGHT_SQL)) {
+                insert.setLong(1, seq);
+                insert.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                insert.executeUpdate();
+            }
+            connection.commit();
+            return seq;
+        } catch (SQLException e) {
+            closeSequenceConnection();
+            throw e;
+        }
+    }
+
+    synchronized void release(long seq) {
+        try {
+            Connection connection = sequenceConnection();
+            try (PreparedStatement delete = connection.prepareStatement(RELEASE_SQL)) {
+                delete.setLong(1, seq);
+                delete.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            //지우지 못한 등록은 removeOrphans 가 지운다.
+            log.warn("failed to release in-flight change sequence {}", seq, e);
+            closeSequenceConnection();
+        }
+    }
+
+    private Connection sequenceConnection() throws SQLException {
+        if (sequenceConnection == null || sequenceConnection.isClosed()) {
+            sequenceConnection = sequenceDataSource.getConnection();
+            sequenceConnection.setAutoCommit(false);
+        }
+        return sequenceConnection;
+    }
+
+    private void closeSequenceConnection() {
+        if (sequenceConnection == null) {
+            return;
+        }
+        try {
+            sequenceConnection.close();
+        } catch (SQLException e) {
+            log.debug("failed to close change sequence connection", e);
+        }
+        sequenceConnection = null;
+    }
+
+    /**
+     * 선점/감사 필드만 바뀐 수정은 기록하지 않는다. 바뀐 필드를 알 수 없으면 기록한다.
+     */
+    private static boolean tracked(PostUpdateEvent event) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null || dirty.length == 0) {
+            return true;
+        }
+        String[] names = event.getPersister().getPropertyNames();
+        for (int index : dirty) {
+            if (!UNTRACKED_PROPERTIES.contains(names[index])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Pending pending(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            Pending created = new Pending();
+            session.getActionQueue().registerProcess(
+                    (BeforeTransactionCompletionProcess) completing -> completing.doWork(created::apply));
+            session.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, completed) -> {
+                        pending.remove(completed);
+                        if (created.seq != null) {
+                            release(created.seq);
+                        }
+                    });
+            return created;
+        });
+    }
+
+    /**
+     * 한 세션(트랜잭션)에서 변경/삭제한 id
+     */
+    private class Pending {
+
+        private final Map<ChangeTable, Set<Long>> upserted = new EnumMap<>(ChangeTable.class);
+        private final Map<ChangeTable, Set<Long>> deleted = new EnumMap<>(ChangeTable.class);
+        private Long seq;
+
+        void upsert(ChangeTable table, Long id) {
+            upserted.computeIfAbsent(table, t -> new TreeSet<>()).add(id);
+            deleted.computeIfAbsent(table, t -> new TreeSet<>()).remove(id);
+        }
+
+        void delete(ChangeTable table, Long id) {
+            upserted.computeIfAbsent(table, t -> new TreeSet<>()).remove(id);
+            deleted.computeIfAbsent(table, t -> new TreeSet<>()).add(id);
+        }
+
+        void apply(Connection connection) throws SQLException {
+            if (upserted.values().stream().allMatch(Set::isEmpty) && deleted.values().stream().allMatch(Set::isEmpty)) {
+                return;
+            }
+            seq = allocate();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (ChangeTable table : ChangeTable.values()) {
+                stamp(connection, table, upserted.getOrDefault(table, Set.of()));
+                tombstones(connection, table, deleted.getOrDefault(table, Set.of()), now);
+            }
+        }
+
+        private void stamp(Connection connection, ChangeTable table, Set<Long> ids) throws SQLException {
+            if (ids.isEmpty()) {
+                return;
+            }
+            String sql = "update " + table.getTableName() + " set change_seq = ? where " + table.getIdColumn() + " = ?";
+            try (PreparedStatement update = connection.prepareStatement(sql)) {
+                for (Long id : ids) {
+                    update.setLong(1, seq);
+                    update.setLong(2, id);
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+        }
+
+        private void tombstones(Connection connection, ChangeTable table, Set<Long> ids, Timestamp now) throws SQLException {
+            if (ids.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement insert = connection.prepareStatement(TOMBSTONE_SQL)) {
+                for (Long id : ids) {
+                    insert.setString(1, table.getEntityName());
+                    insert.setLong(2, id);
+                    insert.setLong(3, seq);
+                    insert.setTimestamp(4, now);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+}
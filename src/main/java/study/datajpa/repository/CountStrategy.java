@@ -0,0 +1,22 @@
+package study.datajpa.repository;
+
+/**
+ * Page 조회 시 전체 건수(totalElements)를 구하는 방식
+ */
+public enum CountStrategy {
+
+    /**
+     * 매 요청마다 count 쿼리 실행
+     */
+    EXACT,
+
+    /**
+     * count 결과를 TTL 동안 캐시, Member 테이블에 쓰기가 발생하면 무효화
+     */
+    CACHED,
+
+    /**
+     * 테이블 통계(추정치) 사용, 조건이 있는 조회는 CACHED 로 동작
+     */
+    ESTIMATED
+}
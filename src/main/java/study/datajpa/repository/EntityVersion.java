@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 조건부 GET 용 프로브 - 엔티티를 조회하지 않고 version, 수정일만 조회한다.
+ */
+public interface EntityVersion {
+
+    Long getVersion();
+    LocalDateTime getLastModifiedDate();
+}
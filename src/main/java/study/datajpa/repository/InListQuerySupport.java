@@ -0,0 +1,133 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.CustomizableThreadFactory;
+import study.datajpa.config.P6spy.QueryBudgetMonitor;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 큰 IN 절 처리
+ *
+ * IN 절 파라미터 수가 바뀔 때마다 SQL 모양이 달라져 쿼리 계획 캐시(Hibernate, DB)를 오염시킨다.
+ *  - hibernate.query.in_clause_parameter_padding 으로 파라미터 수를 2의 거듭제곱으로 맞춘다.
+ *  - chunk-size 보다 많으면 청크로 나누어 실행한다. 트랜잭션이 없으면 청크를 병렬로 실행한다.
+ *    (트랜잭션 안에서는 커밋되지 않은 변경이 보여야 하고, 영속성 컨텍스트를 공유해야 하므로 순서대로 실행한다.)
+ *  - temp-table-threshold 보다 많으면 값을 임시 테이블에 넣고 조인한다.
+ *    임시 테이블 적재는 쓰기이므로 읽기 전용 트랜잭션 안에서는 청크로 나누어 실행한다.
+ *  - id 목록 조회(multi-load)는 multi-load-batch-size 단위의 IN 쿼리로 나누어 조회한다.
+ *
+ * 실행 방식과 관계없이 호출한 쪽에 트랜잭션이 있으면 결과는 그 영속성 컨텍스트에 속하고(영속),
+ * 트랜잭션이 없으면 조회가 끝난 뒤 영속성 컨텍스트가 닫히므로 준영속 상태다. (병렬 청크, 임시 테이블 모두 동일)
+ */
+@Component
+public class InListQuerySupport {
+
+    private final TransactionTemplate tempTableTransaction;
+    private final ExecutorService executor;
+    @Getter
+    private final int chunkSize;
+    @Getter
+    private final int tempTableThreshold;
+    @Getter
+    private final int multiLoadBatchSize;
+
+    public InListQuerySupport(PlatformTransactionManager transactionManager,
+                              @Value("${datajpa.in-list.chunk-size:1000}") int chunkSize,
+                              @Value("${datajpa.in-list.temp-table-threshold:10000}") int tempTableThreshold,
+                              @Value("${datajpa.in-list.parallelism:4}") int parallelism,
+                              @Value("${datajpa.in-list.multi-load-batch-size:100}") int multiLoadBatchSize) {
+        this.tempTableTransaction = new TransactionTemplate(transactionManager);
+        this.executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("in-list-"));
+        this.chunkSize = chunkSize;
+        this.tempTableThreshold = tempTableThreshold;
+        this.multiLoadBatchSize = multiLoadBatchSize;
+    }
+
+    public <V, R> List<R> executeInChunks(List<V> values, Function<List<V>, List<R>> query) {
+        if (values.size() <= chunkSize) {
+            return query.apply(values);
+        }
+
+        List<List<V>> chunks = chunks(values);
+        List<R> result = new ArrayList<>();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (List<V> chunk : chunks) {
+                result.addAll(query.apply(chunk));
+            }
+            return result;
+        }
+
+        List<Future<List<R>>> futures = new ArrayList<>();
+        for (List<V> chunk : chunks) {
+            futures.add(executor.submit(QueryBudgetMonitor.propagate(() -> query.apply(chunk))));
+        }
+        try {
+            for (Future<List<R>> future : futures) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("interrupted while waiting for in-list chunks", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * chunk-size 단위로 나눈 목록 - 트랜잭션 안에서 순서대로 실행하는 쓰기(벌크 연산)에서 사용한다.
+     */
+    public <V> List<List<V>> chunks(List<V> values) {
+        List<List<V>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += chunkSize) {
+            chunks.add(values.subList(from, Math.min(from + chunkSize, values.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * 임시 테이블은 CREATE/INSERT/DELETE 를 실행하므로 읽기 전용 트랜잭션 안에서는 사용할 수 없다.
+     */
+    public boolean useTempTable(int size) {
+        if (size <= tempTableThreshold) {
+            return false;
+        }
+        return !(TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    /**
+     * 임시 테이블은 커넥션(세션) 단위이므로 적재와 조인을 한 트랜잭션(커넥션)에서 실행한다.
+     * 트랜잭션이 없으면 읽기/쓰기 트랜잭션을 새로 시작한다.
+     */
+    public <T> T inTransaction(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        return tempTableTransaction.execute(status -> work.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.repository;
+
+import study.datajpa.dto.BulkInsertResult;
+import study.datajpa.entity.Item;
+
+import java.util.List;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * 식별자를 직접 할당한 Item 을 대량으로 INSERT 한다.
+     *  - save() 처럼 persist/merge 판단이나 merge 전 SELECT 를 하지 않는다.
+     *  - 엔티티 리스너를 거치지 않고 createdDate 를 한 번에 채운다.
+     *  - 영속성 컨텍스트에 올리지 않으므로 대상 Item 은 호출 후 준영속 상태로 취급한다.
+     */
+    BulkInsertResult bulkInsert(List<Item> items);
+
+    BulkInsertResult bulkInsert(List<Item> items, int batchSize);
+}
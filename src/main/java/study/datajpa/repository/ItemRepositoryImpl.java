@@ -0,0 +1,72 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.BulkInsertResult;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    /**
+     * Item 매핑을 직접 옮긴 INSERT - 필드를 추가하면 여기에도 추가해야 한다. (ItemRepositoryTest 에서 매핑된 컬럼과 비교)
+     */
+    static final List<String> INSERT_COLUMNS = List.of("id", "created_date");
+    private static final String INSERT_SQL = "insert into item (" + String.join(", ", INSERT_COLUMNS) + ")" +
+            " values (" + String.join(", ", Collections.nCopies(INSERT_COLUMNS.size(), "?")) + ")";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final int defaultBatchSize;
+
+    public ItemRepositoryImpl(EntityManager em, JdbcTemplate jdbcTemplate,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int defaultBatchSize) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    @Override
+    public BulkInsertResult bulkInsert(List<Item> items) {
+        return bulkInsert(items, defaultBatchSize);
+    }
+
+    /**
+     * JdbcTemplate 은 JPA 트랜잭션과 같은 커넥션을 사용한다.
+     * 영속성 컨텍스트에 쌓여 있던 변경을 먼저 flush 하여 INSERT 순서를 보장한 뒤,
+     * batchSize 단위로 나누어 executeBatch 를 실행한다.
+     * 배치 중간에 실패하지 않도록 batchSize 와 id 를 먼저 검사한다.
+     */
+    @Override
+    @Transactional
+    public BulkInsertResult bulkInsert(List<Item> items, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getId() == null) {
+                throw new IllegalArgumentException("item id must not be null: index " + i);
+            }
+        }
+
+        long start = System.nanoTime();
+        em.flush();
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp createdDate = Timestamp.valueOf(now);
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, items, batchSize, (ps, item) -> {
+            ps.setLong(1, item.getId());
+            ps.setTimestamp(2, createdDate);
+        });
+        items.forEach(item -> item.initCreatedDate(now));
+
+        return new BulkInsertResult(items.size(), System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,115 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.CustomizableThreadFactory;
+import study.datajpa.config.P6spy.QueryBudgetMonitor;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * bulkAgePlus 를 member_id 구간(청크)으로 나누어 병렬로 실행한다.
+ *
+ * 하나의 UPDATE 로 전체 행을 갱신하면 트랜잭션이 길어져 락을 오래 잡고 undo 로그가 커진다.
+ * 청크마다 짧은 트랜잭션을 사용하고, 제한된 크기의 스레드 풀에서 동시에 실행한다.
+ *
+ * 청크 쿼리는 @Modifying(clearAutomatically = true) 이므로 청크마다 영속성 컨텍스트가 초기화된다.
+ * 청크는 다른 스레드의 별도 트랜잭션에서 실행되므로, 호출하는 쪽에 트랜잭션이 있으면 안 된다.
+ * (호출자의 커밋되지 않은 변경은 보이지 않고, 같은 행의 락을 두고 서로 기다리게 된다.)
+ */
+@Slf4j
+@Component
+public class MemberBulkUpdateExecutor {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final long chunkSize;
+
+    public MemberBulkUpdateExecutor(MemberRepository memberRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${datajpa.bulk.chunk-size:10000}") long chunkSize,
+                                    @Value("${datajpa.bulk.parallelism:4}") int parallelism) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("datajpa.bulk.chunk-size must be positive: " + chunkSize);
+        }
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("bulk-update-"));
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkUpdateJob bulkAgePlus(int age) {
+        return bulkAgePlus(age, chunkSize);
+    }
+
+    public BulkUpdateJob bulkAgePlus(int age, long chunkSize) {
+        BulkUpdateJob job = BulkUpdateJob.of(age, memberRepository.findMinId(), memberRepository.findMaxId(), chunkSize);
+        return run(job);
+    }
+
+    /**
+     * 완료되지 않은 청크(실패 또는 중단)만 다시 실행한다.
+     * 실패한 청크의 트랜잭션은 롤백되었으므로 age + 1 이 두 번 적용되지 않는다.
+     */
+    public BulkUpdateJob resume(BulkUpdateJob job) {
+        return run(job);
+    }
+
+    private BulkUpdateJob run(BulkUpdateJob job) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("chunked bulk update must not run inside a transaction");
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (BulkUpdateJob.Chunk chunk : job.pendingChunks()) {
+            futures.add(executor.submit(QueryBudgetMonitor.propagate(() -> {
+                runChunk(job, chunk);
+                return null;
+            })));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(false));
+                break;
+            } catch (ExecutionException e) {
+                //runChunk 에서 실패를 기록하므로 여기까지 오지 않는다.
+                log.warn("bulk update chunk failed", e.getCause());
+            }
+        }
+
+        log.info("bulkAgePlus(age={}) chunks {}/{} completed, {} failed, {} rows updated",
+                job.getAge(), job.getCompletedChunks(), job.getTotalChunks(), job.getFailedChunks(), job.getUpdatedRows());
+        return job;
+    }
+
+    private void runChunk(BulkUpdateJob job, BulkUpdateJob.Chunk chunk) {
+        try {
+            Integer updated = transactionTemplate.execute(status ->
+                    memberRepository.bulkAgePlus(job.getAge(), chunk.getFromId(), chunk.getToId()));
+            job.complete(chunk, updated == null ? 0 : updated);
+        } catch (RuntimeException e) {
+            log.warn("bulk update chunk {} failed", chunk, e);
+            job.fail(chunk, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
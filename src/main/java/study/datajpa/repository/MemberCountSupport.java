@@ -0,0 +1,99 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * CountStrategy 에 따라 Page 의 전체 건수를 구한다.
+ *
+ * 캐시 무효화는 MemberCountInvalidationListener 가 member 테이블에 대한
+ * INSERT/UPDATE/DELETE(벌크 연산 포함) 실행과 커밋 시점에 호출한다.
+ */
+@Component
+public class MemberCountSupport {
+
+    /**
+     * 조건 없는 전체 건수 키 - ESTIMATED 는 이 키에만 테이블 통계를 사용한다.
+     */
+    public static final String ALL = "all";
+
+    private static final int MAX_CACHED_KEYS = 1000;
+    private static final String ESTIMATE_SQL = "select row_count_estimate from information_schema.tables" +
+            " where table_schema = 'PUBLIC' and table_name = 'MEMBER'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlNanos;
+
+    private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public MemberCountSupport(JdbcTemplate jdbcTemplate,
+                              @Value("${datajpa.count.cache-ttl-seconds:30}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public long count(CountStrategy strategy, String key, LongSupplier exactCount) {
+        switch (strategy) {
+            case CACHED:
+                return cached(key, exactCount);
+            case ESTIMATED:
+                return ALL.equals(key) ? estimated(exactCount) : cached(key, exactCount);
+            default:
+                return exactCount.getAsLong();
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * count 를 계산하는 사이에 무효화가 일어났다면 계산 결과를 캐시에 넣지 않는다.
+     */
+    private long cached(String key, LongSupplier exactCount) {
+        long now = System.nanoTime();
+        CachedCount cached = cache.get(key);
+        if (cached != null && now - cached.expiresAt < 0) {
+            return cached.value;
+        }
+
+        long current = generation.get();
+        long value = exactCount.getAsLong();
+        if (generation.get() == current) {
+            if (cache.size() >= MAX_CACHED_KEYS) {
+                cache.clear();
+            }
+            cache.put(key, new CachedCount(value, now + ttlNanos));
+        }
+        return value;
+    }
+
+    /**
+     * H2 의 information_schema 추정치, 지원하지 않는 DB 라면 정확한 count 로 대체한다.
+     */
+    private long estimated(LongSupplier exactCount) {
+        try {
+            Long estimate = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class);
+            return estimate != null ? estimate : exactCount.getAsLong();
+        } catch (DataAccessException e) {
+            return exactCount.getAsLong();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedCount {
+        private final long value;
+        private final long expiresAt;
+    }
+}
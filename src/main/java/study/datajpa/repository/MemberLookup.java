@@ -0,0 +1,72 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 같은 회원을 동시에 조회하는 요청을 하나의 DB 조회로 합친다. (MemberRepository.findById, findMemberByUsername 앞단)
+ *
+ * 합쳐진 호출은 같은 Member 인스턴스를 받는다.
+ *  - 트랜잭션 밖에서만 합친다. 반환되는 엔티티는 준영속 상태이므로 읽기 전용으로만 사용해야 한다.
+ *  - 호출한 쪽에 트랜잭션이 있으면 그 영속성 컨텍스트에서 조회해야 하므로(변경 감지, 커밋되지 않은 변경) 합치지 않는다.
+ */
+@Component
+public class MemberLookup {
+
+    private final MemberRepository memberRepository;
+    private final boolean enabled;
+
+    private final SingleFlight<Long, Optional<Member>> byId = new SingleFlight<>();
+    private final SingleFlight<String, Optional<Member>> byUsername = new SingleFlight<>();
+    private final LongAdder bypassed = new LongAdder();
+
+    public MemberLookup(MemberRepository memberRepository,
+                        @Value("${datajpa.single-flight.enabled:true}") boolean enabled) {
+        this.memberRepository = memberRepository;
+        this.enabled = enabled;
+    }
+
+    public Optional<Member> findById(Long id) {
+        if (!coalesce()) {
+            return memberRepository.findById(id);
+        }
+        return byId.execute(id, () -> memberRepository.findById(id));
+    }
+
+    public Member findMemberByUsername(String username) {
+        if (!coalesce()) {
+            return memberRepository.findMemberByUsername(username);
+        }
+        return byUsername.execute(username, () -> Optional.ofNullable(memberRepository.findMemberByUsername(username)))
+                .orElse(null);
+    }
+
+    private boolean coalesce() {
+        if (enabled && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return true;
+        }
+        bypassed.increment();
+        return false;
+    }
+
+    public Map<String, Object> report() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("findById", byId.report());
+        result.put("findMemberByUsername", byUsername.report());
+        result.put("bypassed", bypassed.sum());
+        return result;
+    }
+
+    public void reset() {
+        byId.reset();
+        byUsername.reset();
+        bypassed.reset();
+    }
+}
@@ -4,6 +4,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.ReadOnlyQuery;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
@@ -12,6 +14,11 @@ import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * 직접 선언한 쿼리 메소드에는 기본 트랜잭션이 적용되지 않는다. (SimpleJpaRepository 의 메소드만 적용)
+ * 조회 메소드는 @ReadOnlyQuery 로 읽기 전용 트랜잭션에서 실행하고, 변경/락 메소드만 @Transactional 로 재정의한다.
+ */
+@ReadOnlyQuery
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
     /**
@@ -36,17 +43,19 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select m from Member m where m.username = :username and m.age = :age")
     List<Member> findUser(@Param("username") String username, @Param("age") int age);
 
+    /**
+     * 쿼리 캐시 - 결과(식별자 목록)를 캐시하고, Member 테이블에 변경(벌크 연산 포함)이 생기면 무효화된다.
+     */
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("select m.username from Member m")
     List<String> findUsernameList();
 
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    @Query("select m from Member m where m.username in :names")
-    List<Member> findByNames(@Param("names") List<String> names);
-
     List<Member> findListByUsername(String username);           //컬렉션
 
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Member findMemberByUsername(String username);               //단건
 
     Optional<Member> findOptionalByUsername(String username);   //단건 Optional
@@ -63,15 +72,19 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      */
     Page<Member> findByAge(int age, Pageable pageable);
 
+    //벌크 연산 bulkAgePlus 는 TeamSummary 갱신이 함께 필요하므로 MemberRepositoryCustom 에서 구현한다.
+
     /**
-     * @Modifying 어노테이션이 있어야 데이터 변경이 일어남.
-     * 해당 어노테이션이 없을 때 데이터 변경 쿼리를 날리면 ExceptionError 발생
-     * <p>
-     * 벌크 연산 이후 영속성 컨텍스트 초기화 하기
+     * 조건부 GET 프로브 (ETag: version, Last-Modified: lastModifiedDate)
      */
-    @Modifying(clearAutomatically = true)
-    @Query(value = "update Member m set m.age = m.age + 1 where m.age >= :age")
-    int bulkAgePlus(@Param("age") int age);
+    @Query("select m.version as version, m.lastModifiedDate as lastModifiedDate from Member m where m.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") Long id);
+
+    @Query("select min(m.id) from Member m")
+    Long findMinId();
+
+    @Query("select max(m.id) from Member m")
+    Long findMaxId();
 
     @Query(value = "select m From Member m left join fetch m.team")
     List<Member> findMemberFetchJoin();
@@ -91,6 +104,11 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
+    /**
+     * 비관적 락 - select ... for update, 커밋할 때까지 같은 행을 변경하려는 트랜잭션이 대기한다.
+     * 충돌이 드물면 @Version 과 OptimisticRetryExecutor 를 사용한다.
+     */
+    @Transactional
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
@@ -109,10 +127,26 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     /**
      * 정적쿼리만 사용하길 권함.
+     * <p>
+     * 조인 조건(on)이 없으면 member x team 카테시안 곱이 되어 content 와 countQuery 의 건수가 달라진다.
+     * member 기준 left join(team 은 PK 조회)이므로 count 는 member 만 센다.
+     * offset 페이징은 순서가 보장되도록 정렬(예: Sort.by("member_id"))을 함께 넘긴다.
      */
     @Query(value = "select m.member_id as id, m.username, t.name as teamName" +
-            " from member m left join team t",
+            " from member m left join team t on m.team_id = t.team_id",
             countQuery = "select count(*) from member",
             nativeQuery = true)
     Page<MemberProjection> findByNativeProjection(Pageable pageable);
+
+    /**
+     * findByNativeProjection 의 키셋 페이징 - member_id(PK) 범위 조건이므로 깊은 페이지도 비용이 일정하다.
+     * 첫 페이지는 lastId 0, 다음 페이지는 이전 페이지의 마지막 id 를 넘긴다. (count 쿼리 없음)
+     */
+    @Query(value = "select m.member_id as id, m.username, t.name as teamName" +
+            " from member m left join team t on m.team_id = t.team_id" +
+            " where m.member_id > :lastId" +
+            " order by m.member_id" +
+            " limit :limit",
+            nativeQuery = true)
+    List<MemberProjection> findByNativeProjectionAfter(@Param("lastId") Long lastId, @Param("limit") int limit);
 }
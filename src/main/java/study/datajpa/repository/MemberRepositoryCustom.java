@@ -1,10 +1,129 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.ReadOnlyQuery;
+import study.datajpa.dto.Change;
+import study.datajpa.dto.ChangeWatermark;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.stream.Stream;
 
+@ReadOnlyQuery
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
 
+    /**
+     * username IN 조회 - 목록 크기에 따라 실행 방식이 달라진다. (InListQuerySupport)
+     *  - chunk-size 이하: 한 번의 IN 쿼리 (파라미터 수는 2의 거듭제곱으로 패딩)
+     *  - temp-table-threshold 이하: chunk-size 단위로 나누어 실행, 트랜잭션이 없으면 병렬 실행
+     *  - 그 이상: 임시 테이블에 적재 후 조인 (읽기 전용 트랜잭션 안에서는 청크로 나누어 실행)
+     * 중복된 이름은 한 번만 조회하며, 결과 순서는 보장하지 않는다.
+     * 트랜잭션 안에서 호출하면 결과는 영속 상태이고, 트랜잭션 없이 호출하면 준영속 상태다.
+     * 트랜잭션이 없을 때 새 트랜잭션을 만들지 않도록(병렬 실행) SUPPORTS 로 실행한다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    List<Member> findByNames(List<String> names);
+
+    /**
+     * 키셋(seek) 페이징 - (age, member_id) 오름차순
+     *  - offset 을 사용하지 않으므로 깊은 페이지도 첫 페이지와 같은 비용으로 조회한다.
+     *  - cursor 가 null 이면 첫 페이지를 조회한다.
+     *  - team 은 fetch join 으로 함께 조회한다.
+     */
+    CursorPage<Member> findByCursor(MemberCursor cursor, int size);
+
+    /**
+     * 변경 피드 - (changeSeq, member_id) 가 since 이후인 변경/삭제를 최대 size 건 조회한다.
+     *  - 안전 워터마크(가장 오래된 진행 중 순번 바로 아래) 이하만 조회하므로 건너뛴 변경이 나중에 나타나지 않는다. (ChangeTracker)
+     *  - 키셋 조건이므로 idx_member_change_seq 인덱스를 사용한다. team 은 fetch join 으로 함께 조회한다.
+     *  - 삭제(배치 삭제 포함)는 Tombstone 으로 조회한다. (ChangeFeedSupport)
+     *  - 응답의 next 워터마크로 이어서 조회한다.
+     */
+    CursorPage<Change<Member>> findChangesSince(ChangeWatermark since, int size);
+
+    /**
+     * id 목록 조회 (Session.byMultipleIds)
+     *  - 영속성 컨텍스트, 2차 캐시에 있는 회원은 DB 를 조회하지 않고, 나머지만 multi-load-batch-size 단위 IN 쿼리로 조회한다.
+     *  - "Member.all" 엔티티 그래프로 team 을 함께 조회한다. (캐시에서 꺼낸 회원의 team 은 초기화되지 않은 팀만 모아서 한 번에 조회)
+     *  - 결과는 ids 와 같은 순서, 같은 크기이며 없는 id 의 자리는 null 이다.
+     *  - ids 에 null 이 있으면 IllegalArgumentException
+     */
+    List<Member> findAllByIdInOrder(List<Long> ids);
+
+    /**
+     * findByAge(int, Pageable) 와 같지만 count 쿼리 방식을 선택할 수 있다.
+     */
+    Page<Member> findByAge(int age, Pageable pageable, CountStrategy countStrategy);
+
+    Page<Member> findAll(Pageable pageable, CountStrategy countStrategy);
+
+    /**
+     * findAll(Pageable, CountStrategy) 에 "Member.all" 엔티티 그래프를 적용하여 team 을 함께 조회한다.
+     *  - OSIV 없이 트랜잭션 밖에서 team 에 접근해도 LazyInitializationException 이 발생하지 않는다.
+     */
+    Page<Member> findAllWithTeam(Pageable pageable, CountStrategy countStrategy);
+
+    /**
+     * 엔티티 대신 MemberDto 로 바로 조회하는 페이징 (팀 이름 포함)
+     *  - 영속성 컨텍스트에 엔티티/스냅샷을 만들지 않는다.
+     *  - count 쿼리는 team 을 조인하지 않는다. (left join 이므로 건수가 같다)
+     */
+    Page<MemberDto> findMemberDtoPage(Pageable pageable, CountStrategy countStrategy);
+
+    /**
+     * 서버 사이드 커서(ScrollableResults) 기반 스트림 - 전체 결과를 List 로 메모리에 올리지 않는다.
+     *  - 트랜잭션 안에서 사용하고, 다 쓴 스트림은 반드시 close 해야 한다.
+     *  - 읽기 전용으로 조회하므로 스냅샷을 만들지 않는다. 사용한 엔티티는 detach 하여 영속성 컨텍스트가 커지지 않게 한다.
+     *  - 2차 캐시를 사용하지 않는다. (CacheMode.IGNORE - 전체를 읽으면서 자주 쓰는 회원이 캐시에서 밀려나지 않게 한다)
+     */
+    Stream<Member> streamAll(int fetchSize);
+
+    void detach(Member member);
+
+    /**
+     * 작업 선점 - 선점되지 않은(또는 lease 가 지난) 회원을 최대 size 건 잠그고 workerId 로 선점한다.
+     *  - select ... for update skip locked: 다른 워커가 잠근 행은 기다리지 않고 건너뛴다.
+     *    (SKIP LOCKED 를 지원하지 않는 DB 는 lock timeout 까지 기다린 뒤 PessimisticLockingFailureException)
+     *  - 선점은 @Version 으로 갱신하므로, 락 없이 같은 행을 읽은 워커는 커밋 전에 충돌(OptimisticLockingFailureException)한다.
+     *  - 워커가 비정상 종료해도 lease 가 지나면 다른 워커가 다시 선점할 수 있다.
+     *  - lease 가 지난 회원을 먼저, 선점되지 않은 회원을 member_id 순으로 선점한다. (idx_member_claimed_at, idx_member_claim)
+     */
+    @Transactional
+    List<Member> claimBatch(String workerId, int size, Duration lease);
+
+    /**
+     * age 이상인 회원의 나이를 1 올린다. (@Modifying(clearAutomatically = true) 와 같이 실행 후 영속성 컨텍스트를 초기화한다.)
+     *  - update versioned: 벌크 연산도 version 을 증가시켜, 같은 행을 읽어 둔 낙관적 락 트랜잭션이 충돌을 감지하게 한다.
+     *  - 벌크 연산은 엔티티 리스너(@LastModifiedDate)를 거치지 않으므로 lastModifiedDate 도 직접 갱신한다.
+     *  - 엔티티 이벤트도 발생하지 않으므로 나이 구간이 바뀌는 회원을 먼저 집계하여 TeamSummary 에 반영한다.
+     *  - 대상 행을 먼저 잠그고(select ... for update) 그 id 만 갱신하여 변경 피드(ChangeTracker)에 기록한다.
+     */
+    @Transactional
+    int bulkAgePlus(int age);
+
+    /**
+     * member_id 범위를 나누어 실행하는 벌크 연산 - MemberBulkUpdateExecutor 에서 청크 단위로 사용
+     */
+    @Transactional
+    int bulkAgePlus(int age, Long fromId, Long toId);
+
+    /**
+     * JpaRepository 의 배치 삭제를 대체한다. - 삭제한 회원을 Tombstone 으로 남긴다. (BatchDeleteSupport)
+     */
+    @Transactional
+    void deleteAllInBatch();
+
+    @Transactional
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    @Transactional
+    void deleteAllInBatch(Iterable<Member> entities);
 }
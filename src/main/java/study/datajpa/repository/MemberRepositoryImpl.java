@@ -1,19 +1,404 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Hibernate;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.graph.GraphSemantic;
+import org.hibernate.graph.RootGraph;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.datajpa.dto.Change;
+import study.datajpa.dto.ChangeWatermark;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     private final EntityManager em;
+    private final MemberCountSupport memberCountSupport;
+    private final InListQuerySupport inListQuerySupport;
+    private final ChangeFeedSupport changeFeedSupport;
+    private final TeamSummaryUpdater teamSummaryUpdater;
+    private final ChangeTracker changeTracker;
+    private final BatchDeleteSupport batchDeleteSupport;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public List<Member> findByNames(List<String> names) {
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(names));
+        if (distinctNames.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (inListQuerySupport.useTempTable(distinctNames.size())) {
+            return inListQuerySupport.inTransaction(() -> findByNamesTempTable(distinctNames));
+        }
+        return inListQuerySupport.executeInChunks(distinctNames, chunk ->
+                em.createQuery("select m from Member m where m.username in :names", Member.class)
+                        .setParameter("names", chunk)
+                        .getResultList());
+    }
+
+    /**
+     * H2 세션 임시 테이블 - 커넥션마다 한 번 만들어지고, 트랜잭션 안에서 생성해도 커밋되지 않도록 transactional 로 만든다.
+     * 풀에 반환된 커넥션에 테이블이 남아 있으므로 사용 전후에 행을 비운다.
+     */
+    private List<Member> findByNamesTempTable(List<String> names) {
+        Session session = em.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create local temporary table if not exists tmp_member_names" +
+                        " (name varchar(255) primary key) transactional");
+                statement.execute("delete from tmp_member_names");
+            }
+            try (PreparedStatement insert = connection.prepareStatement("insert into tmp_member_names (name) values (?)")) {
+                int batched = 0;
+                for (String name : names) {
+                    insert.setString(1, name);
+                    insert.addBatch();
+                    if (++batched % inListQuerySupport.getChunkSize() == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        });
+
+        @SuppressWarnings("unchecked")
+        List<Member> result = em.createNativeQuery("select m.* from member m" +
+                        " join tmp_member_names t on m.username = t.name", Member.class)
+                .getResultList();
+
+        session.doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("delete from tmp_member_names");
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CursorPage<Member> findByCursor(MemberCursor cursor, int size) {
+        if (cursor == null || cursor.isForward()) {
+            return findAfter(cursor, size);
+        }
+        return findBefore(cursor, size);
+    }
+
+    @Override
+    public CursorPage<Change<Member>> findChangesSince(ChangeWatermark since, int size) {
+        long until = changeFeedSupport.until();
+        List<Object[]> changed = em.createQuery("select m, m.changeSeq from Member m left join fetch m.team" +
+                        " where m.changeSeq >= :seq and (m.changeSeq > :seq or m.id > :id)" +
+                        " and m.changeSeq <= :until" +
+                        " order by m.changeSeq, m.id", Object[].class)
+                .setParameter("seq", since.getChangeSeq())
+                .setParameter("id", since.getId())
+                .setParameter("until", until)
+                .setMaxResults(size)
+                .getResultList();
+
+        return changeFeedSupport.merge(Member.class, changed, Member::getId, Member::getLastModifiedDate, since, until, size);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Member> findAllByIdInOrder(List<Long> ids) {
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("ids must not contain null");
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Member> members = em.unwrap(Session.class)
+                .byMultipleIds(Member.class)
+                .with((RootGraph<Member>) em.getEntityGraph("Member.all"), GraphSemantic.LOAD)
+                .withBatchSize(inListQuerySupport.getMultiLoadBatchSize())
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .multiLoad(ids);
+        initializeTeams(members);
+        return members;
+    }
+
+    /**
+     * 영속성 컨텍스트, 2차 캐시에서 꺼낸 회원은 엔티티 그래프가 적용되지 않아 team 이 프록시로 남는다.
+     * 회원마다 지연 로딩하지 않도록 초기화되지 않은 팀만 모아서 한 번에 조회한다.
+     * (Team 에 @BatchSize 를 두면 다른 모든 조회의 지연 로딩 방식까지 바뀌므로 여기서만 모아서 조회한다.)
+     */
+    private void initializeTeams(List<Member> members) {
+        Set<Serializable> teamIds = new LinkedHashSet<>();
+        for (Member member : members) {
+            if (member != null && member.getTeam() != null && !Hibernate.isInitialized(member.getTeam())) {
+                teamIds.add(((HibernateProxy) member.getTeam()).getHibernateLazyInitializer().getIdentifier());
+            }
+        }
+        if (teamIds.isEmpty()) {
+            return;
+        }
+        //이미 영속성 컨텍스트에 있는 팀은 조회하지 않는다. 조회한 팀이 영속성 컨텍스트에 올라가므로 프록시는 추가 쿼리 없이 초기화된다.
+        em.unwrap(Session.class)
+                .byMultipleIds(Team.class)
+                .withBatchSize(inListQuerySupport.getMultiLoadBatchSize())
+                .enableSessionCheck(true)
+                .multiLoad(new ArrayList<>(teamIds));
+    }
+
+    /**
+     * PageableExecutionUtils 는 첫 페이지의 content 가 size 보다 작거나 마지막 페이지인 경우 count 를 생략한다.
+     */
+    @Override
+    public Page<Member> findByAge(int age, Pageable pageable, CountStrategy countStrategy) {
+        TypedQuery<Member> query = em.createQuery(
+                        QueryUtils.applySorting("select m from Member m where m.age = :age", MemberSort.validate(pageable.getSort()), "m"), Member.class)
+                .setParameter("age", age);
+
+        return PageableExecutionUtils.getPage(getContent(query, pageable), pageable,
+                () -> memberCountSupport.count(countStrategy, "age:" + age,
+                        () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                                .setParameter("age", age)
+                                .getSingleResult()));
+    }
+
+    @Override
+    public Page<Member> findAll(Pageable pageable, CountStrategy countStrategy) {
+        TypedQuery<Member> query = em.createQuery(
+                QueryUtils.applySorting("select m from Member m", MemberSort.validate(pageable.getSort()), "m"), Member.class);
+
+        return PageableExecutionUtils.getPage(getContent(query, pageable), pageable,
+                () -> memberCountSupport.count(countStrategy, MemberCountSupport.ALL,
+                        () -> em.createQuery("select count(m) from Member m", Long.class)
+                                .getSingleResult()));
+    }
+
+    @Override
+    public Page<Member> findAllWithTeam(Pageable pageable, CountStrategy countStrategy) {
+        TypedQuery<Member> query = em.createQuery(
+                        QueryUtils.applySorting("select m from Member m", MemberSort.validate(pageable.getSort()), "m"), Member.class)
+                .setHint(EntityGraph.EntityGraphType.FETCH.getKey(), em.getEntityGraph("Member.all"));
+
+        return PageableExecutionUtils.getPage(getContent(query, pageable), pageable,
+                () -> memberCountSupport.count(countStrategy, MemberCountSupport.ALL,
+                        () -> em.createQuery("select count(m) from Member m", Long.class)
+                                .getSingleResult()));
+    }
+
+    @Override
+    public Page<MemberDto> findMemberDtoPage(Pageable pageable, CountStrategy countStrategy) {
+        TypedQuery<MemberDto> query = em.createQuery(
+                QueryUtils.applySorting("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                        " from Member m left join m.team t", MemberSort.validate(pageable.getSort()), "m"), MemberDto.class);
+
+        return PageableExecutionUtils.getPage(getContent(query, pageable), pageable,
+                () -> memberCountSupport.count(countStrategy, MemberCountSupport.ALL,
+                        () -> em.createQuery("select count(m) from Member m", Long.class)
+                                .getSingleResult()));
+    }
+
+    private static <T> List<T> getContent(TypedQuery<T> query, Pageable pageable) {
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<Member> streamAll(int fetchSize) {
+        return em.createQuery("select m from Member m order by m.id", Member.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .setHint(QueryHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream();
+    }
+
+    @Override
+    public void detach(Member member) {
+        em.detach(member);
+    }
+
+    /**
+     * 후보는 인덱스를 타는 두 쿼리로 나누어 찾는다. (OR 조건 하나로 찾으면 전체 스캔)
+     *  - 만료된 선점(idx_member_claimed_at): 비정상 종료한 워커의 작업이 새 회원에 밀리지 않도록 먼저 선점한다.
+     *    선점되지 않은 회원은 claimedAt 이 null 이므로 조건에 걸리지 않는다.
+     *  - 선점되지 않은 회원(idx_member_claim): 남은 건수만큼 선점한다.
+     * 조회한 행은 이미 잠겨 있지만, 락을 기다린 뒤 이전 버전을 읽는 DB 가 있으므로 claim 에서 한 번 더 확인하고
+     * flush 하여 version 충돌을 이 메소드 안에서 드러낸다.
+     */
+    @Override
+    public List<Member> claimBatch(String workerId, int size, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiredBefore = now.minus(lease);
+
+        List<Member> candidates = new ArrayList<>(lockClaimCandidates(em.createQuery("select m from Member m" +
+                        " where m.claimedAt < :expiredBefore" +
+                        " order by m.claimedAt, m.id", Member.class)
+                .setParameter("expiredBefore", expiredBefore), size));
+        if (candidates.size() < size) {
+            candidates.addAll(lockClaimCandidates(em.createQuery("select m from Member m" +
+                    " where m.claimedBy is null" +
+                    " order by m.id", Member.class), size - candidates.size()));
+        }
+
+        List<Member> claimed = new ArrayList<>(candidates.size());
+        for (Member member : candidates) {
+            if (member.claim(workerId, now, expiredBefore)) {
+                claimed.add(member);
+            }
+        }
+        em.flush();
+        return claimed;
+    }
+
+    private static List<Member> lockClaimCandidates(TypedQuery<Member> query, int size) {
+        return query.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(AvailableSettings.JPA_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+    @Override
+    public int bulkAgePlus(int age) {
+        em.flush();
+        return agePlus(lockRows(em.createNativeQuery("select member_id, team_id, age from member" +
+                        " where age >= ? for update")
+                .setParameter(1, age)));
+    }
+
+    @Override
+    public int bulkAgePlus(int age, Long fromId, Long toId) {
+        em.flush();
+        return agePlus(lockRows(em.createNativeQuery("select member_id, team_id, age from member" +
+                        " where age >= ? and member_id between ? and ? for update")
+                .setParameter(1, age)
+                .setParameter(2, fromId)
+                .setParameter(3, toId)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object[]> lockRows(Query query) {
+        return query.getResultList();
+    }
+
+    /**
+     * 대상 행을 먼저 잠그고([member_id, team_id, age]) 잠근 id 만 갱신한다.
+     *  - 조건으로 갱신하면 잠근 뒤 조건에 들어온 행이 변경 피드에 기록되지 않는다.
+     *  - 팀 요약은 잠근 행의 나이로 집계하므로 갱신 결과와 어긋나지 않는다.
+     */
+    private int agePlus(List<Object[]> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add(((Number) row[0]).longValue());
+        }
+        changeTracker.recordUpserts(em, ChangeTable.MEMBER, ids);
+        teamSummaryUpdater.beforeBulkAgePlus(em, rows);
+
+        int updated = 0;
+        for (List<Long> chunk : inListQuerySupport.chunks(ids)) {
+            updated += em.createQuery("update versioned Member m" +
+                            " set m.age = m.age + 1, m.lastModifiedDate = current_timestamp where m.id in :ids")
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        em.clear();
+        return updated;
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        batchDeleteSupport.deleteAll(em, ChangeTable.MEMBER);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        List<Long> list = new ArrayList<>();
+        ids.forEach(list::add);
+        batchDeleteSupport.deleteAllById(em, ChangeTable.MEMBER, list);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Member> entities) {
+        List<Long> list = new ArrayList<>();
+        entities.forEach(member -> list.add(member.getId()));
+        batchDeleteSupport.deleteAllById(em, ChangeTable.MEMBER, list);
+    }
+
+    /**
+     * size + 1 건을 조회하여 다음 페이지 존재 여부를 count 쿼리 없이 확인한다.
+     *
+     * (age, id) > (:age, :id) 를 OR 로만 쓰면 인덱스 범위 조건이 없어 전체 스캔하므로, age >= :age 를 앞에 둔다.
+     */
+    private CursorPage<Member> findAfter(MemberCursor cursor, int size) {
+        TypedQuery<Member> query;
+        if (cursor == null) {
+            query = em.createQuery("select m from Member m left join fetch m.team order by m.age asc, m.id asc", Member.class);
+        } else {
+            query = em.createQuery("select m from Member m left join fetch m.team" +
+                            " where m.age >= :age and (m.age > :age or m.id > :id)" +
+                            " order by m.age asc, m.id asc", Member.class)
+                    .setParameter("age", cursor.getAge())
+                    .setParameter("id", cursor.getId());
+        }
+
+        List<Member> rows = query.setMaxResults(size + 1).getResultList();
+        boolean hasNext = rows.size() > size;
+        List<Member> content = new ArrayList<>(hasNext ? rows.subList(0, size) : rows);
+
+        String next = hasNext ? MemberCursor.after(content.get(content.size() - 1)).encode() : null;
+        String previous = cursor != null && !content.isEmpty() ? MemberCursor.before(content.get(0)).encode() : null;
+        return new CursorPage<>(content, next, previous);
+    }
+
+    /**
+     * 역순으로 size + 1 건을 조회한 뒤 뒤집어서 오름차순 페이지를 만든다.
+     */
+    private CursorPage<Member> findBefore(MemberCursor cursor, int size) {
+        List<Member> rows = em.createQuery("select m from Member m left join fetch m.team" +
+                        " where m.age <= :age and (m.age < :age or m.id < :id)" +
+                        " order by m.age desc, m.id desc", Member.class)
+                .setParameter("age", cursor.getAge())
+                .setParameter("id", cursor.getId())
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        boolean hasPrevious = rows.size() > size;
+        List<Member> content = new ArrayList<>(hasPrevious ? rows.subList(0, size) : rows);
+        Collections.reverse(content);
+
+        String previous = hasPrevious ? MemberCursor.before(content.get(0)).encode() : null;
+        String next = !content.isEmpty() ? MemberCursor.after(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(content, next, previous);
+    }
 }
@@ -0,0 +1,29 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+/**
+ * QueryUtils.applySorting 은 정렬 속성을 검증하지 않고 JPQL 에 그대로 붙이므로,
+ * 요청으로 받은 Sort 는 허용한 Member 속성만 사용할 수 있게 한다.
+ */
+public final class MemberSort {
+
+    private static final Set<String> PROPERTIES = Set.of("id", "username", "age", "createdDate", "lastModifiedDate");
+
+    private MemberSort() {
+    }
+
+    /**
+     * @throws IllegalArgumentException 허용하지 않은 정렬 속성인 경우
+     */
+    public static Sort validate(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!PROPERTIES.contains(order.getProperty())) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+        }
+        return sort;
+    }
+}
@@ -0,0 +1,110 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락(@Version) 충돌 시 트랜잭션을 처음부터 다시 실행한다.
+ *
+ * 작업은 매 시도마다 새 트랜잭션에서 엔티티를 다시 조회해야 한다. (이전 시도의 엔티티는 version 이 오래되었다)
+ * 재시도 간격은 지수 백오프 + 지터로, 같은 행을 두고 충돌한 스레드들이 동시에 다시 시도하지 않게 한다.
+ * 호출하는 쪽에 트랜잭션이 있으면 롤백된 트랜잭션 안에서 재시도하게 되므로 허용하지 않는다.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   @Value("${datajpa.optimistic.max-attempts:5}") int maxAttempts,
+                                   @Value("${datajpa.optimistic.initial-backoff-ms:5}") long initialBackoffMillis,
+                                   @Value("${datajpa.optimistic.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        return execute(work, maxAttempts);
+    }
+
+    public <T> T execute(Supplier<T> work, int maxAttempts) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("optimistic retry must not run inside a transaction");
+        }
+
+        executions.increment();
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("optimistic lock conflict, giving up after {} attempts", attempt);
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting to retry", e);
+        }
+    }
+
+    public Report report() {
+        return new Report(executions.sum(), attempts.sum(), conflicts.sum(), exhausted.sum());
+    }
+
+    public void reset() {
+        executions.reset();
+        attempts.reset();
+        conflicts.reset();
+        exhausted.reset();
+    }
+
+    @Getter
+    public static class Report {
+        private final long executions;
+        private final long attempts;
+        private final long conflicts;
+        private final long exhausted;
+        private final double conflictRate;
+
+        private Report(long executions, long attempts, long conflicts, long exhausted) {
+            this.executions = executions;
+            this.attempts = attempts;
+            this.conflicts = conflicts;
+            this.exhausted = exhausted;
+            this.conflictRate = attempts == 0 ? 0 : (double) conflicts / attempts;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키로 동시에 들어온 조회를 하나로 합친다. (single-flight)
+ *
+ * 먼저 들어온 스레드(leader)만 조회를 실행하고, 실행 중에 같은 키로 들어온 스레드는 그 결과(또는 예외)를 함께 받는다.
+ * 결과는 캐시하지 않는다. 조회가 끝나면 키를 지우므로, 그 이후의 호출은 다시 조회한다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        executions.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for in-flight lookup", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    public Report report() {
+        return new Report(calls.sum(), executions.sum(), coalesced.sum());
+    }
+
+    public void reset() {
+        calls.reset();
+        executions.reset();
+        coalesced.reset();
+    }
+
+    @Getter
+    public static class Report {
+        private final long calls;
+        private final long executions;
+        private final long coalesced;
+        private final double coalescingRatio;
+
+        private Report(long calls, long executions, long coalesced) {
+            this.calls = calls;
+            this.executions = executions;
+            this.coalesced = coalesced;
+            this.coalescingRatio = calls == 0 ? 0 : (double) coalesced / calls;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 목록 ETag 용 테이블 버전 - 안전 워터마크 이하에서 그 테이블(삭제 기록 포함)의 가장 큰 변경 순번 (ChangeTracker.versions)
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class TableVersion {
+
+    private final String tableName;
+    private final long version;
+}
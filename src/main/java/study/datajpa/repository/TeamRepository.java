@@ -1,7 +1,31 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import study.datajpa.config.ReadOnlyQuery;
 import study.datajpa.entity.Team;
 
-public interface TeamRepository extends JpaRepository<Team, Long> {
+import java.util.List;
+import java.util.Optional;
+
+@ReadOnlyQuery
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+
+    @Query("select t.version as version, t.lastModifiedDate as lastModifiedDate from Team t where t.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * 변경 피드 - (changeSeq, team_id) 가 워터마크 이후이고 안전 워터마크(until) 이하인 [팀, 변경 순번] (idx_team_change_seq)
+     * 삭제는 ChangeFeedSupport 에서 Tombstone 과 합친다.
+     */
+    @Query("select t, t.changeSeq from Team t" +
+            " where t.changeSeq >= :seq and (t.changeSeq > :seq or t.id > :id)" +
+            " and t.changeSeq <= :until" +
+            " order by t.changeSeq, t.id")
+    List<Object[]> findChangesSince(@Param("seq") Long seq,
+                                    @Param("id") Long id,
+                                    @Param("until") Long until,
+                                    Pageable pageable);
 }
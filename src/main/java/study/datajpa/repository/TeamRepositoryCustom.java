@@ -0,0 +1,19 @@
+package study.datajpa.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Team;
+
+/**
+ * JpaRepository 의 배치 삭제를 대체한다. - 삭제한 팀을 Tombstone 으로 남긴다. (BatchDeleteSupport)
+ */
+public interface TeamRepositoryCustom {
+
+    @Transactional
+    void deleteAllInBatch();
+
+    @Transactional
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    @Transactional
+    void deleteAllInBatch(Iterable<Team> entities);
+}
@@ -0,0 +1,34 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final EntityManager em;
+    private final BatchDeleteSupport batchDeleteSupport;
+
+    @Override
+    public void deleteAllInBatch() {
+        batchDeleteSupport.deleteAll(em, ChangeTable.TEAM);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        List<Long> list = new ArrayList<>();
+        ids.forEach(list::add);
+        batchDeleteSupport.deleteAllById(em, ChangeTable.TEAM, list);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Team> entities) {
+        List<Long> list = new ArrayList<>();
+        entities.forEach(team -> list.add(team.getId()));
+        batchDeleteSupport.deleteAllById(em, ChangeTable.TEAM, list);
+    }
+}
@@ -0,0 +1,107 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.TeamSummary;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TeamSummary 일관성 검사 - member 집계와 요약을 비교하여 다른 팀을 찾고, repair 이면 다시 계산한다.
+ *
+ * 증분 갱신이 놓치는 변경(JPQL 벌크 삭제, DB 직접 수정)과 요약이 없는 팀, 팀이 삭제된 요약을 찾는다.
+ * 마지막 활동 시각은 집계로 알 수 없으므로 비교하지 않는다.
+ */
+@Slf4j
+@Component
+public class TeamSummaryConsistencyCheck {
+
+    private static final String MISMATCH_SQL;
+
+    static {
+        StringBuilder sql = new StringBuilder("select a.team_id from (")
+                .append(TeamSummaryUpdater.aggregateSql("1 = 1"))
+                .append(") a left join team_summary s on s.team_id = a.team_id")
+                .append(" where s.team_id is null or s.member_count <> a.member_count");
+        for (String column : TeamSummary.BUCKET_COLUMNS) {
+            sql.append(" or s.").append(column).append(" <> a.").append(column);
+        }
+        sql.append(" union select s.team_id from team_summary s where not exists (select 1 from team t where t.team_id = s.team_id)");
+        MISMATCH_SQL = sql.toString();
+    }
+
+    private final EntityManager em;
+    private final TeamSummaryUpdater teamSummaryUpdater;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean repair;
+
+    private volatile Report lastReport;
+
+    public TeamSummaryConsistencyCheck(EntityManager em,
+                                       TeamSummaryUpdater teamSummaryUpdater,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${datajpa.team-summary.repair:true}") boolean repair) {
+        this.em = em;
+        this.teamSummaryUpdater = teamSummaryUpdater;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.repair = repair;
+    }
+
+    @Scheduled(fixedDelayString = "${datajpa.team-summary.check-interval-ms:600000}",
+            initialDelayString = "${datajpa.team-summary.check-interval-ms:600000}")
+    public void scheduledCheck() {
+        Report report = check();
+        if (!report.getMismatched().isEmpty()) {
+            log.warn("team summary mismatch {} teams, repaired={}", report.getMismatched().size(), report.isRepaired());
+        }
+    }
+
+    public Report check() {
+        Report report = transactionTemplate.execute(status -> {
+            Session session = em.unwrap(Session.class);
+            return session.doReturningWork(connection -> {
+                List<Long> mismatched = new ArrayList<>();
+                try (PreparedStatement select = connection.prepareStatement(MISMATCH_SQL);
+                     ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        mismatched.add(rs.getLong(1));
+                    }
+                }
+                if (repair) {
+                    for (Long teamId : mismatched) {
+                        teamSummaryUpdater.recompute(connection, teamId);
+                    }
+                }
+                return new Report(mismatched, repair);
+            });
+        });
+        lastReport = report;
+        return report;
+    }
+
+    public Report lastReport() {
+        return lastReport;
+    }
+
+    @Getter
+    public static class Report {
+        private final List<Long> mismatched;
+        private final boolean repaired;
+
+        private Report(List<Long> mismatched, boolean repaired) {
+            this.mismatched = Collections.unmodifiableList(mismatched);
+            this.repaired = repaired && !mismatched.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import study.datajpa.config.ReadOnlyQuery;
+import study.datajpa.entity.TeamSummary;
+
+import java.util.List;
+
+/**
+ * 팀 요약 조회 - 요약은 TeamSummaryUpdater 가 SQL 로 갱신하므로 조회만 한다.
+ */
+@ReadOnlyQuery
+public interface TeamSummaryRepository extends JpaRepository<TeamSummary, Long> {
+
+    @Query("select s from TeamSummary s order by s.memberCount desc, s.teamId")
+    List<TeamSummary> findLargest(Pageable pageable);
+}
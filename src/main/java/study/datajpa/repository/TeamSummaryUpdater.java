@@ -0,0 +1,327 @@
+package study.datajpa.repository;
+
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.TeamSummary;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TeamSummary 증분 갱신
+ *
+ * 회원 등록/수정(changeTeam, 나이 변경)/삭제 이벤트에서 팀별 변화량(회원 수, 나이 구간)만 모아 두고,
+ * 커밋 직전(flush 이후)에 팀마다 한 번의 UPDATE 로 반영한다. 같은 트랜잭션이므로 롤백되면 요약도 반영되지 않는다.
+ *  - 요약 행은 team_id 순서로 잠근다. 트랜잭션마다 순서가 다르면 서로의 요약 행을 기다리는 교착 상태가 되고,
+ *    교착 상태로 롤백되면 호출한 쪽의 회원 변경까지 롤백된다.
+ *  - 변화량이 없는 팀(이름, 나이 구간 안의 나이 변경)은 마지막 활동 시각만 activity-debounce-ms 보다 오래된 경우에 갱신한다.
+ *    자주 바뀌는 팀의 요약 행이 모든 회원 변경의 경합 지점이 되지 않게 한다.
+ *  - 요약 행이 없는 팀(새 팀, 기능 도입 전의 팀)은 member 를 집계하여 새로 만든다.
+ *    (변화량 없이 활동 시각만 바뀐 팀은 만들지 않는다. TeamSummaryConsistencyCheck 가 찾아 만든다.)
+ *  - 벌크 연산(bulkAgePlus)은 엔티티 이벤트가 없으므로, 갱신할 행을 잠그고 읽은 나이로 구간이 바뀌는 회원 수를 집계하여 같은 방식으로 반영한다.
+ *  - JPQL 벌크 삭제(deleteAllInBatch 등)는 반영되지 않는다. TeamSummaryConsistencyCheck 가 주기적으로 찾아 다시 계산한다.
+ */
+@Component
+public class TeamSummaryUpdater implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String UPDATE_SQL;
+    private static final String RECOMPUTE_SQL;
+    private static final String DELETE_SQL = "delete from team_summary where team_id = ?";
+    private static final String TOUCH_SQL = "update team_summary set last_activity = ?" +
+            " where team_id = ? and (last_activity is null or last_activity < ?)";
+
+    static {
+        StringBuilder update = new StringBuilder("update team_summary set member_count = member_count + ?");
+        for (String column : TeamSummary.BUCKET_COLUMNS) {
+            update.append(", ").append(column).append(" = ").append(column).append(" + ?");
+        }
+        UPDATE_SQL = update.append(", last_activity = ? where team_id = ?").toString();
+
+        RECOMPUTE_SQL = "merge into team_summary (team_id, member_count, " + String.join(", ", TeamSummary.BUCKET_COLUMNS) +
+                ", last_activity) key (team_id) " + aggregateSql("t.team_id = ?");
+    }
+
+    private final EntityManagerFactory emf;
+    private final Duration activityDebounce;
+
+    private final Map<SharedSessionContractImplementor, Pending> pending = new ConcurrentHashMap<>();
+
+    public TeamSummaryUpdater(EntityManagerFactory emf,
+                              @Value("${datajpa.team-summary.activity-debounce-ms:60000}") long activityDebounceMs) {
+        this.emf = emf;
+        this.activityDebounce = Duration.ofMillis(activityDebounceMs);
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * team 별 (회원 수, 나이 구간별 회원 수, 마지막 활동 시각) 집계 SELECT - 요약 재계산과 일관성 검사에서 사용
+     */
+    static String aggregateSql(String where) {
+        StringBuilder select = new StringBuilder("select t.team_id, count(m.member_id) as member_count");
+        for (int i = 0; i < TeamSummary.BUCKETS; i++) {
+            String condition = i == 0 ? "m.age < 10"
+                    : i == TeamSummary.BUCKETS - 1 ? "m.age >= " + (i * 10)
+                    : "m.age between " + (i * 10) + " and " + (i * 10 + 9);
+            select.append(", sum(case when ").append(condition).append(" then 1 else 0 end) as ")
+                    .append(TeamSummary.BUCKET_COLUMNS[i]);
+        }
+        return select.append(", coalesce(max(m.last_modified_date), t.last_modified_date) as last_activity")
+                .append(" from team t left join member m on m.team_id = t.team_id")
+                .append(" where ").append(where)
+                .append(" group by t.team_id, t.last_modified_date")
+                .toString();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Team) {
+            pending(event.getSession()).recompute(((Team) event.getEntity()).getId());
+        } else if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            if (member.getTeam() != null) {
+                pending(event.getSession()).add(member.getTeam().getId(), member.getAge(), 1);
+            }
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Member member = (Member) event.getEntity();
+        Pending pending = pending(event.getSession());
+        Long newTeamId = member.getTeam() == null ? null : member.getTeam().getId();
+
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            //이전 상태를 알 수 없으면 변화량 대신 다시 계산한다.
+            pending.recompute(newTeamId);
+            return;
+        }
+
+        String[] names = event.getPersister().getPropertyNames();
+        Team oldTeam = (Team) oldState[indexOf(names, "team")];
+        int oldAge = (Integer) oldState[indexOf(names, "age")];
+        Long oldTeamId = oldTeam == null ? null : oldTeam.getId();
+
+        if (oldTeamId != null && (!oldTeamId.equals(newTeamId) || TeamSummary.bucket(oldAge) != TeamSummary.bucket(member.getAge()))) {
+            pending.add(oldTeamId, oldAge, -1);
+            pending.add(newTeamId, member.getAge(), 1);
+        } else if (oldTeamId == null) {
+            pending.add(newTeamId, member.getAge(), 1);
+        } else {
+            pending.touch(newTeamId);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Team) {
+            pending(event.getSession()).remove((Long) event.getId());
+        } else if (event.getEntity() instanceof Member) {
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] state = event.getDeletedState();
+            Team team = (Team) state[indexOf(names, "team")];
+            if (team != null) {
+                pending(event.getSession()).add(team.getId(), (Integer) state[indexOf(names, "age")], -1);
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * bulkAgePlus 실행 직전에 호출한다. 갱신할 행을 잠그고 읽은 [member_id, team_id, age] 로
+     * age + 1 에 10살 구간이 바뀌는 회원(9, 19, ..., 59살)을 팀/구간별로 집계한다.
+     * 잠근 행만 갱신하므로 집계와 갱신 대상이 같다.
+     */
+    public void beforeBulkAgePlus(EntityManager em, List<Object[]> rows) {
+        Pending pending = pending((EventSource) em.unwrap(Session.class));
+        for (Object[] row : rows) {
+            if (row[1] == null) {
+                continue;
+            }
+            long teamId = ((Number) row[1]).longValue();
+            int age = ((Number) row[2]).intValue();
+            if (age < Integer.MAX_VALUE && TeamSummary.bucket(age + 1) != TeamSummary.bucket(age)) {
+                pending.shift(teamId, TeamSummary.bucket(age), 1);
+            } else {
+                pending.touch(teamId);
+            }
+        }
+    }
+
+    /**
+     * 팀 요약을 member 집계로 다시 계산한다. 팀이 없으면 요약을 지운다.
+     */
+    void recompute(Connection connection, Long teamId) throws SQLException {
+        try (PreparedStatement merge = connection.prepareStatement(RECOMPUTE_SQL)) {
+            merge.setLong(1, teamId);
+            if (merge.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+            delete.setLong(1, teamId);
+            delete.executeUpdate();
+        }
+    }
+
+    private Pending pending(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            Pending created = new Pending();
+            session.getActionQueue().registerProcess(
+                    (BeforeTransactionCompletionProcess) completing -> completing.doWork(created::apply));
+            session.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, completed) -> pending.remove(completed));
+            return created;
+        });
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("unknown property: " + name);
+    }
+
+    /**
+     * 한 세션(트랜잭션)에서 모은 팀별 변화량 - [회원 수, 구간 0 ~ 6]
+     */
+    private class Pending {
+
+        private final Map<Long, long[]> deltas = new TreeMap<>();
+        private final Set<Long> recompute = new TreeSet<>();
+        private final Set<Long> removed = new TreeSet<>();
+
+        void add(Long teamId, int age, int delta) {
+            if (teamId == null) {
+                return;
+            }
+            long[] counts = counts(teamId);
+            counts[0] += delta;
+            counts[1 + TeamSummary.bucket(age)] += delta;
+        }
+
+        void shift(Long teamId, int fromBucket, long count) {
+            long[] counts = counts(teamId);
+            counts[1 + fromBucket] -= count;
+            counts[1 + Math.min(fromBucket + 1, TeamSummary.BUCKETS - 1)] += count;
+        }
+
+        void touch(Long teamId) {
+            if (teamId != null) {
+                counts(teamId);
+            }
+        }
+
+        void recompute(Long teamId) {
+            if (teamId != null) {
+                recompute.add(teamId);
+            }
+        }
+
+        void remove(Long teamId) {
+            removed.add(teamId);
+        }
+
+        private long[] counts(Long teamId) {
+            return deltas.computeIfAbsent(teamId, id -> new long[1 + TeamSummary.BUCKETS]);
+        }
+
+        /**
+         * 갱신, 재계산, 삭제 모두 team_id 순서로 한 번씩 실행한다.
+         */
+        void apply(Connection connection) throws SQLException {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp nowTimestamp = Timestamp.valueOf(now);
+            Timestamp debounced = Timestamp.valueOf(now.minus(activityDebounce));
+
+            Set<Long> teamIds = new TreeSet<>(deltas.keySet());
+            teamIds.addAll(recompute);
+            teamIds.addAll(removed);
+
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_SQL);
+                 PreparedStatement touch = connection.prepareStatement(TOUCH_SQL);
+                 PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+                for (Long teamId : teamIds) {
+                    if (removed.contains(teamId)) {
+                        delete.setLong(1, teamId);
+                        delete.executeUpdate();
+                    } else if (recompute.contains(teamId)) {
+                        TeamSummaryUpdater.this.recompute(connection, teamId);
+                    } else if (isZero(deltas.get(teamId))) {
+                        touch.setTimestamp(1, nowTimestamp);
+                        touch.setLong(2, teamId);
+                        touch.setTimestamp(3, debounced);
+                        touch.executeUpdate();
+                    } else {
+                        long[] counts = deltas.get(teamId);
+                        for (int i = 0; i < counts.length; i++) {
+                            update.setLong(i + 1, counts[i]);
+                        }
+                        update.setTimestamp(counts.length + 1, nowTimestamp);
+                        update.setLong(counts.length + 2, teamId);
+                        if (update.executeUpdate() == 0) {
+                            TeamSummaryUpdater.this.recompute(connection, teamId);
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean isZero(long[] counts) {
+            for (long count : counts) {
+                if (count != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import study.datajpa.config.ReadOnlyQuery;
+import study.datajpa.entity.Tombstone;
+
+import java.util.List;
+
+@ReadOnlyQuery
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    /**
+     * (changeSeq, entityId) 가 워터마크 이후이고 안전 워터마크(until) 이하인 삭제 기록 - 변경 피드와 같은 키셋 조건 (idx_tombstone_type_seq)
+     */
+    @Query("select t from Tombstone t" +
+            " where t.entityType = :entityType" +
+            " and t.changeSeq >= :seq and (t.changeSeq > :seq or t.entityId > :id)" +
+            " and t.changeSeq <= :until" +
+            " order by t.changeSeq, t.entityId")
+    List<Tombstone> findSince(@Param("entityType") String entityType,
+                              @Param("seq") Long seq,
+                              @Param("id") Long id,
+                              @Param("until") Long until,
+                              Pageable pageable);
+}
@@ -0,0 +1,40 @@
+package study.datajpa.config.P6spy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void percentile() throws Exception {
+        //given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        //when
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        //then
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMaxMicros());
+        assertEquals(500.5, histogram.getMeanMicros());
+        //버킷 상한값을 반환하므로 실제 값보다 최대 12.5% 크다.
+        assertThat(histogram.percentile(50)).isBetween(500L, 563L);
+        assertThat(histogram.percentile(99)).isBetween(990L, 1000L);
+        assertEquals(1000, histogram.percentile(100));
+    }
+
+    @Test
+    public void bucketBoundary() throws Exception {
+        for (long value : new long[]{0, 15, 16, 17, 31, 32, 1_000, 123_456_789L}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(LatencyHistogram.upperBoundOf(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.upperBoundOf(index - 1)).isLessThan(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.config.P6spy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class QueryBudgetMonitorTest {
+
+    @Autowired
+    QueryBudgetMonitor queryBudgetMonitor;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void detectNPlusOne() throws Exception {
+        //given
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, 10, team));
+        }
+        em.flush();
+        em.clear();
+
+        //when
+        queryBudgetMonitor.begin("GET /test/n-plus-one");
+        //findMemberCustom 은 fetch join 이 없으므로 team 을 하나씩 조회한다.
+        memberRepository.findMemberCustom().forEach(m -> m.getTeam().getName());
+        queryBudgetMonitor.end();
+
+        //then
+        List<QueryBudgetMonitor.CallSiteStats> worst = queryBudgetMonitor.worstCallSites(10);
+        assertTrue(worst.stream().anyMatch(stats ->
+                stats.getRequests().containsKey("GET /test/n-plus-one")
+                        && stats.getRequests().get("GET /test/n-plus-one").getMaxRepeats() >= 5));
+    }
+}
@@ -0,0 +1,38 @@
+package study.datajpa.config.P6spy;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 테스트용 - capture 로 실행한 코드가 현재 스레드에서 실행한 SQL 을 바인드 값을 채운 상태로 모은다.
+ *
+ * 테스트 소스도 컴포넌트 스캔 대상이므로, 별도 설정 없이 모든 테스트가 공유하는 컨텍스트에 등록된다.
+ */
+@Component
+public class SqlCaptureListener extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(statementInformation.getSqlWithValues());
+        }
+    }
+
+    public List<String> capture(Runnable runnable) {
+        List<String> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            runnable.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        return captured;
+    }
+}
@@ -0,0 +1,107 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestAuditorAwareTest {
+
+    RequestAuditorAware auditorAware = new RequestAuditorAware("X-User-Id", true, "system", true);
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void outsideRequest() throws Exception {
+        assertEquals("system", auditorAware.getCurrentAuditor().get());
+    }
+
+    @Test
+    public void headerIsCachedPerRequest() throws Exception {
+        //given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-User-Id", "user-1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        //when
+        String first = auditorAware.getCurrentAuditor().get();
+        request.removeHeader("X-User-Id");
+        request.addHeader("X-User-Id", "user-2");
+        String second = auditorAware.getCurrentAuditor().get();
+
+        //then
+        assertEquals("user-1", first);
+        assertEquals("user-1", second);
+    }
+
+    @Test
+    public void principalBeforeHeader() throws Exception {
+        //given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setUserPrincipal(() -> "principal-1");
+        request.addHeader("X-User-Id", "user-1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        //when
+        String auditor = auditorAware.getCurrentAuditor().get();
+
+        //then
+        assertEquals("principal-1", auditor);
+    }
+
+    @Test
+    public void headerIgnoredUnlessTrusted() throws Exception {
+        //given
+        RequestAuditorAware untrusted = new RequestAuditorAware("X-User-Id", false, "system", true);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-User-Id", "user-1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        //when
+        String auditor = untrusted.getCurrentAuditor().get();
+
+        //then - 헤더 대신 익명 id 를 사용한다.
+        assertNotEquals("user-1", auditor);
+        assertEquals(22, auditor.length());
+    }
+
+    @Test
+    public void anonymousRequestGetsOneCompactId() throws Exception {
+        //given
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        //when
+        String first = auditorAware.getCurrentAuditor().get();
+        String second = auditorAware.getCurrentAuditor().get();
+
+        //then
+        assertEquals(22, first.length());
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void compactEncoding() throws Exception {
+        //given
+        UUID uuid = UUID.randomUUID();
+
+        //when
+        String encoded = auditorAware.encode(uuid.toString());
+
+        //then
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(encoded));
+        assertEquals(22, encoded.length());
+        assertEquals(uuid, new UUID(buffer.getLong(), buffer.getLong()));
+        assertEquals("user-1", auditorAware.encode("user-1"));
+        assertEquals(uuid.toString(), new RequestAuditorAware("X-User-Id", true, "system", false).encode(uuid.toString()));
+    }
+}
@@ -0,0 +1,192 @@
+package study.datajpa.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 목록 ETag 의 변경 카운터는 커밋 직전에 올라가므로 @Transactional 을 사용하지 않고(변경을 커밋), 데이터는 직접 정리한다.
+ */
+@SpringBootTest
+class ConditionalGetTest {
+
+    @Autowired
+    WebApplicationContext context;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    MockMvc mockMvc;
+    Statistics statistics;
+    Team team;
+    Member member;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        team = teamRepository.save(new Team("teamA"));
+        member = memberRepository.save(new Member("member1", 10, team));
+        memberRepository.save(new Member("member2", 20, team));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void memberNotModified() throws Exception {
+        //given
+        String etag = etag("/members/" + member.getId());
+
+        //when
+        statistics.clear();
+        mockMvc.perform(get("/members/" + member.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        //then - 프로브 쿼리만 실행하고 엔티티는 조회하지 않는다.
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void memberModified() throws Exception {
+        //given
+        String etag = etag("/members/" + member.getId());
+
+        //when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).get().setUsername("changed"));
+
+        //then
+        String changed = mockMvc.perform(get("/members/" + member.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("changed", changed);
+    }
+
+    @Test
+    public void memberNotFound() throws Exception {
+        mockMvc.perform(get("/members/" + (member.getId() + 1000)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void listNotModifiedUntilInsert() throws Exception {
+        //given
+        String etag = etag("/members2?page=0&size=5");
+        mockMvc.perform(get("/members2?page=0&size=5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        //when
+        memberRepository.save(new Member("member3", 30, team));
+
+        //then
+        mockMvc.perform(get("/members2?page=0&size=5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    public void listModifiedByBulkUpdate() throws Exception {
+        //given
+        String etag = etag("/members");
+
+        //when - 벌크 수정도 변경 카운터를 올리므로 ETag 가 바뀐다.
+        memberRepository.bulkAgePlus(10);
+
+        //then
+        mockMvc.perform(get("/members").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void listNotModifiedByRolledBackChange() throws Exception {
+        //given
+        String etag = etag("/members");
+
+        //when
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("member3", 30, team));
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        //then
+        mockMvc.perform(get("/members").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void teamListModifiedByRename() throws Exception {
+        //given
+        String etag = etag("/teams");
+
+        //when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                teamRepository.findById(team.getId()).get().setName("teamB"));
+
+        //then
+        mockMvc.perform(get("/teams").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    public void teamNotModified() throws Exception {
+        //given
+        String etag = etag("/teams/" + team.getId());
+
+        //when
+        statistics.clear();
+        mockMvc.perform(get("/teams/" + team.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        //then
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+    }
+
+    private String etag(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"");
+        return etag;
+    }
+}
@@ -0,0 +1,137 @@
+package study.datajpa.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewFilter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import study.datajpa.config.P6spy.ConnectionHoldTimeListener;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * OSIV 켜짐/꺼짐 상태에서 같은 부하를 주고 커넥션 점유 시간을 기록한다.
+ *
+ * 점유 시간은 실행 환경에 따라 달라지므로 로그로만 남기고, 검증은 결정적인 값(요청마다 커넥션이 반환되었는지)만 한다.
+ * 애플리케이션은 open-in-view: false 이므로, OSIV 상태는 OpenEntityManagerInViewFilter 를 직접 추가하여 재현한다.
+ * 요청마다 커넥션을 따로 사용하므로 @Transactional 을 사용하지 않고, 데이터는 직접 정리한다.
+ */
+@Slf4j
+@SpringBootTest
+class OpenInViewLoadTest {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS = 50;
+
+    @Autowired
+    WebApplicationContext context;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    ConnectionHoldTimeListener connectionHoldTimeListener;
+
+    @BeforeEach
+    void setUp() {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            teams.add(new Team("team" + i));
+        }
+        teamRepository.saveAll(teams);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            members.add(new Member("member" + i, i % 100, teams.get(i % 10)));
+        }
+        memberRepository.saveAll(members);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void connectionHoldTime() throws Exception {
+        //given
+        MockMvc withoutOsiv = MockMvcBuilders.webAppContextSetup(context).build();
+        MockMvc withOsiv = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(new OpenEntityManagerInViewFilter() {
+                    @Override
+                    protected EntityManagerFactory lookupEntityManagerFactory() {
+                        return emf;
+                    }
+                })
+                .build();
+
+        //when
+        ConnectionHoldTimeListener.Report osivReport = measure(withOsiv);
+        ConnectionHoldTimeListener.Report report = measure(withoutOsiv);
+
+        //then
+        log.info("osiv    : mean={}us, p99={}us, maxInUse={}", osivReport.getMeanMicros(), osivReport.getP99Micros(), osivReport.getMaxInUse());
+        log.info("no osiv : mean={}us, p99={}us, maxInUse={}", report.getMeanMicros(), report.getP99Micros(), report.getMaxInUse());
+        assertThat(osivReport.getCount()).isGreaterThanOrEqualTo(REQUESTS);
+        assertThat(report.getCount()).isGreaterThanOrEqualTo(REQUESTS);
+    }
+
+    @Test
+    public void lazyLoadingOutsideTransactionFailsFast() throws Exception {
+        //when
+        Member member = memberRepository.findListByUsername("member1").get(0);
+
+        //then
+        assertThatThrownBy(() -> member.getTeam().getName())
+                .isInstanceOf(LazyInitializationException.class);
+    }
+
+    private ConnectionHoldTimeListener.Report measure(MockMvc mockMvc) throws Exception {
+        connectionHoldTimeListener.reset();
+        load(mockMvc);
+        return connectionHoldTimeListener.report();
+    }
+
+    private void load(MockMvc mockMvc) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(executor.submit(() -> {
+                    mockMvc.perform(get("/members").param("size", "100").param("sort", "id"))
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$.content[0].teamName").exists());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
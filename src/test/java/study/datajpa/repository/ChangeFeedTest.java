@@ -0,0 +1,211 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.Change;
+import study.datajpa.dto.ChangeWatermark;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 변경 순번은 커밋 직전에 기록되므로 @Transactional 을 사용하지 않고(변경을 커밋), 데이터는 직접 정리한다.
+ */
+@SpringBootTest
+class ChangeFeedTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    ChangeTracker changeTracker;
+    @Autowired
+    ChangeFeedSupport changeFeedSupport;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    ChangeWatermark start;
+    Team teamA;
+    List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        //다른 테스트가 남긴 데이터와 섞이지 않도록 현재 안전 워터마크부터 조회한다.
+        start = ChangeWatermark.of(changeTracker.safeWatermark(), 0L);
+
+        teamA = teamRepository.save(new Team("teamA"));
+        for (int i = 1; i <= 5; i++) {
+            members.add(memberRepository.save(new Member("member" + i, i, teamA)));
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void keysetContinuation() throws Exception {
+        //when - 2건씩 이어서 조회한다.
+        List<Change<Member>> changes = readAll(start, 2);
+
+        //then
+        assertThat(changes).extracting("data.username")
+                .containsExactly("member1", "member2", "member3", "member4", "member5");
+        assertThat(changes).extracting("data.team.name").containsOnly("teamA");
+        assertThat(changes).isSortedAccordingTo((a, b) -> a.getChangeSeq().compareTo(b.getChangeSeq()));
+    }
+
+    @Test
+    public void updatesAndDeletes() throws Exception {
+        //given
+        ChangeWatermark watermark = ChangeWatermark.decode(memberRepository.findChangesSince(start, 100).getNext());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.findByUsername("member2").get(0).setAge(20);
+            memberRepository.delete(memberRepository.findByUsername("member4").get(0));
+        });
+
+        //when
+        List<Change<Member>> changes = readAll(watermark, 100);
+
+        //then - 변경된 회원과 삭제된 회원만 같은 순번으로 조회된다.
+        assertEquals(2, changes.size());
+        Change<Member> updated = changes.stream().filter(c -> !c.isDeleted()).findFirst().get();
+        Change<Member> deleted = changes.stream().filter(Change::isDeleted).findFirst().get();
+        assertEquals(members.get(1).getId(), updated.getId());
+        assertEquals(20, updated.getData().getAge());
+        assertEquals(members.get(3).getId(), deleted.getId());
+        assertNull(deleted.getData());
+        assertEquals(updated.getChangeSeq(), deleted.getChangeSeq());
+    }
+
+    @Test
+    public void noChanges() throws Exception {
+        //given
+        CursorPage<Change<Member>> first = memberRepository.findChangesSince(start, 100);
+
+        //when
+        CursorPage<Change<Member>> next = memberRepository.findChangesSince(ChangeWatermark.decode(first.getNext()), 100);
+
+        //then - 변경이 없으면 같은 워터마크를 돌려준다.
+        assertThat(next.getContent()).isEmpty();
+        assertEquals(first.getNext(), next.getNext());
+    }
+
+    @Test
+    public void teamChanges() throws Exception {
+        //given
+        Team teamB = teamRepository.save(new Team("teamB"));
+        teamRepository.delete(teamB);
+
+        //when
+        long until = changeFeedSupport.until();
+        List<Object[]> changed = teamRepository.findChangesSince(start.getChangeSeq(), start.getId(), until, PageRequest.of(0, 10));
+        CursorPage<Change<Team>> page = changeFeedSupport.merge(Team.class, changed, Team::getId, Team::getLastModifiedDate,
+                start, until, 10);
+
+        //then
+        assertThat(page.getContent()).extracting("id", "deleted")
+                .containsExactly(tuple(teamA.getId(), false), tuple(teamB.getId(), true));
+    }
+
+    @Test
+    public void batchDeleteLeavesTombstones() throws Exception {
+        //given
+        ChangeWatermark watermark = ChangeWatermark.decode(memberRepository.findChangesSince(start, 100).getNext());
+
+        //when - 엔티티 이벤트가 없는 배치 삭제
+        memberRepository.deleteAllByIdInBatch(List.of(members.get(0).getId(), members.get(2).getId()));
+
+        //then
+        List<Change<Member>> changes = readAll(watermark, 100);
+        assertThat(changes).extracting("id", "deleted")
+                .containsExactly(tuple(members.get(0).getId(), true), tuple(members.get(2).getId(), true));
+    }
+
+    @Test
+    public void longTransactionNotSkipped() throws Exception {
+        //given - 변경을 flush 한 뒤 커밋하지 않은 트랜잭션이 있는 동안 다른 스레드에서 피드를 끝까지 읽는다.
+        ChangeWatermark watermark = transactionTemplate.execute(status -> {
+            Member member1 = memberRepository.findByUsername("member1").get(0);
+            member1.setAge(30);
+            memberRepository.flush();
+            return CompletableFuture.supplyAsync(() -> {
+                List<Change<Member>> changes = readAll(start, 100);
+                return changes.get(changes.size() - 1).watermark();
+            }).join();
+        });
+
+        //when - 커밋한 뒤 이어서 조회한다.
+        List<Change<Member>> changes = readAll(watermark, 100);
+
+        //then - 수정 시각은 이전이지만 커밋 순서로 순번을 받으므로 건너뛰지 않는다.
+        assertThat(changes).extracting("id").containsExactly(members.get(0).getId());
+        assertEquals(30, changes.get(0).getData().getAge());
+    }
+
+    @Test
+    public void claimNotTracked() throws Exception {
+        //given
+        ChangeWatermark watermark = ChangeWatermark.decode(memberRepository.findChangesSince(start, 100).getNext());
+
+        //when - 선점은 회원 데이터를 바꾸지 않는다.
+        assertEquals(5, memberRepository.claimBatch("worker-1", 10, Duration.ofMinutes(1)).size());
+
+        //then
+        assertThat(readAll(watermark, 100)).isEmpty();
+    }
+
+    @Test
+    public void safeWatermarkStopsBelowInflight() throws Exception {
+        //given - 순번을 발급받고 아직 커밋하지 않은 트랜잭션
+        long inflight = changeTracker.allocate();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    memberRepository.findByUsername("member1").get(0).setAge(30));
+
+            //when
+            long until = changeFeedSupport.until();
+
+            //then - 뒤에 발급된 순번이 먼저 커밋되어도 진행 중 순번 아래에서 멈춘다.
+            assertEquals(inflight - 1, until);
+            assertThat(readAll(start, 100)).extracting("data.username")
+                    .doesNotContain("member1").hasSize(4);
+        } finally {
+            changeTracker.release(inflight);
+        }
+
+        //then - 진행 중 순번이 끝나면 이어서 조회된다.
+        assertThat(readAll(start, 100)).extracting("data.username").contains("member1");
+    }
+
+    private List<Change<Member>> readAll(ChangeWatermark since, int size) {
+        List<Change<Member>> result = new ArrayList<>();
+        CursorPage<Change<Member>> page = memberRepository.findChangesSince(since, size);
+        while (!page.getContent().isEmpty()) {
+            result.addAll(page.getContent());
+            page = memberRepository.findChangesSince(ChangeWatermark.decode(page.getNext()), size);
+        }
+        return result;
+    }
+}
@@ -1,18 +1,39 @@
 package study.datajpa.repository;
 
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import study.datajpa.dto.BulkInsertResult;
 import study.datajpa.entity.Item;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+/**
+ * bulkInsert 는 JdbcTemplate 으로 커밋되므로 @Transactional 을 사용하지 않고, 데이터는 직접 정리한다.
+ */
 @SpringBootTest
 class ItemRepositoryTest {
 
     @Autowired ItemRepository itemRepository;
+    @Autowired EntityManagerFactory emf;
+
+    @AfterEach
+    void cleanUp() {
+        itemRepository.deleteAllInBatch();
+    }
 
     @Test
     public void save() throws Exception {
@@ -26,4 +47,50 @@ class ItemRepositoryTest {
         //then
         assertEquals(1, findItem.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bulkInsert() throws Exception {
+        //given
+        List<Item> items = LongStream.range(10_000, 15_000)
+                .mapToObj(Item::new)
+                .collect(Collectors.toList());
+
+        //when
+        BulkInsertResult result = itemRepository.bulkInsert(items);
+        System.out.println("result = " + result + ", rows/sec = " + result.getRowsPerSecond());
+
+        //then
+        assertEquals(items.size(), result.getCount());
+        assertFalse(items.get(0).isNew());
+
+        Item findItem = itemRepository.findById(10_000L).get();
+        assertNotNull(findItem.getId());
+        assertFalse(findItem.isNew());
+        assertEquals(items.size(), itemRepository.findAllById(LongStream.range(10_000, 15_000).boxed().collect(Collectors.toList())).size());
+    }
+
+    @Test
+    public void bulkInsertValidatesUpFront() throws Exception {
+        //given
+        List<Item> items = List.of(new Item(1L), new Item(null), new Item(3L));
+
+        //when then - 일부만 INSERT 되지 않고 시작 전에 실패한다. (리포지토리 프록시가 IllegalArgumentException 을 변환)
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> itemRepository.bulkInsert(items));
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> itemRepository.bulkInsert(List.of(new Item(1L)), 0));
+        assertEquals(0, itemRepository.count());
+    }
+
+    @Test
+    public void bulkInsertColumnsMatchMapping() throws Exception {
+        //given
+        AbstractEntityPersister persister = (AbstractEntityPersister) emf.unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(Item.class);
+        Set<String> mapped = new HashSet<>(Arrays.asList(persister.getIdentifierColumnNames()));
+        for (int i = 0; i < persister.getPropertyNames().length; i++) {
+            mapped.addAll(Arrays.asList(persister.getPropertyColumnNames(i)));
+        }
+
+        //then - Item 에 필드를 추가하면 bulkInsert 의 INSERT 에도 추가해야 한다.
+        assertEquals(mapped, new HashSet<>(ItemRepositoryImpl.INSERT_COLUMNS));
+    }
+}
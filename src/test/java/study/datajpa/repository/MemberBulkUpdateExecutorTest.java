@@ -0,0 +1,102 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 청크는 별도 트랜잭션에서 실행되므로 테스트에 @Transactional 을 사용하지 않고, 데이터는 직접 정리한다.
+ */
+@SpringBootTest
+class MemberBulkUpdateExecutorTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberBulkUpdateExecutor bulkUpdateExecutor;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void chunkedBulkAgePlus() throws Exception {
+        //given
+        List<Member> members = IntStream.rangeClosed(1, 100)
+                .mapToObj(i -> new Member("member" + i, i))
+                .collect(Collectors.toList());
+        memberRepository.saveAll(members);
+
+        //when
+        BulkUpdateJob job = bulkUpdateExecutor.bulkAgePlus(51, 10);
+
+        //then
+        assertTrue(job.isFinished());
+        assertEquals(0, job.getFailedChunks());
+        assertEquals(50, job.getUpdatedRows());
+        assertEquals(50, memberRepository.findMemberByUsername("member50").getAge());
+        assertEquals(52, memberRepository.findMemberByUsername("member51").getAge());
+        assertEquals(101, memberRepository.findMemberByUsername("member100").getAge());
+    }
+
+    @Test
+    public void resumeSkipsCompletedChunks() throws Exception {
+        //given
+        memberRepository.saveAll(IntStream.rangeClosed(1, 20)
+                .mapToObj(i -> new Member("member" + i, 30))
+                .collect(Collectors.toList()));
+        BulkUpdateJob job = bulkUpdateExecutor.bulkAgePlus(30, 5);
+
+        //when
+        bulkUpdateExecutor.resume(job);
+
+        //then
+        assertTrue(job.pendingChunks().isEmpty());
+        assertEquals(20, job.getUpdatedRows());
+        assertEquals(31, memberRepository.findMemberByUsername("member1").getAge());
+    }
+
+    @Test
+    public void resumeRerunsOnlyFailedChunk() throws Exception {
+        //given
+        List<Member> members = memberRepository.saveAll(IntStream.rangeClosed(1, 20)
+                .mapToObj(i -> new Member("member" + i, i == 13 ? Integer.MAX_VALUE : 30))
+                .collect(Collectors.toList()));
+        Member poison = members.get(12);
+
+        //age + 1 이 int 범위를 넘어 poison 이 속한 청크만 실패하고 롤백된다.
+        BulkUpdateJob job = bulkUpdateExecutor.bulkAgePlus(30, 5);
+        assertFalse(job.isFinished());
+        assertEquals(1, job.getFailedChunks());
+        assertEquals(15, job.getUpdatedRows());
+        BulkUpdateJob.Chunk failed = job.pendingChunks().get(0);
+        assertEquals(1, job.pendingChunks().size());
+        assertTrue(failed.getFromId() <= poison.getId() && poison.getId() <= failed.getToId());
+
+        //when
+        memberRepository.deleteById(poison.getId());
+        bulkUpdateExecutor.resume(job);
+
+        //then
+        assertTrue(job.isFinished());
+        assertEquals(0, job.getFailedChunks());
+        assertEquals(19, job.getUpdatedRows());
+        for (Member member : memberRepository.findAll()) {
+            assertEquals(31, member.getAge(), member.getUsername());
+        }
+    }
+
+    @Test
+    public void rejectNonPositiveChunkSize() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> BulkUpdateJob.of(10, 1L, 10L, 0));
+    }
+}
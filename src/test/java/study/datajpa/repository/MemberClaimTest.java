@@ -0,0 +1,124 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import study.datajpa.entity.Member;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 워커마다 별도 트랜잭션으로 선점하므로 @Transactional 을 사용하지 않고, 데이터는 직접 정리한다.
+ */
+@SpringBootTest
+class MemberClaimTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void claimBatch() throws Exception {
+        //given
+        memberRepository.saveAll(IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> new Member("member" + i, i))
+                .collect(Collectors.toList()));
+
+        //when
+        List<Member> first = memberRepository.claimBatch("worker-1", 3, LEASE);
+        List<Member> second = memberRepository.claimBatch("worker-2", 3, LEASE);
+        List<Member> third = memberRepository.claimBatch("worker-3", 3, LEASE);
+
+        //then
+        assertThat(first).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first).extracting("claimedBy").containsOnly("worker-1");
+        assertThat(second).extracting("username").containsExactly("member4", "member5");
+        assertThat(third).isEmpty();
+    }
+
+    @Test
+    public void expiredClaimCanBeReclaimed() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.claimBatch("worker-1", 10, LEASE);
+
+        //when - 음수 lease: 모든 선점이 이미 만료된 것으로 본다.
+        List<Member> reclaimed = memberRepository.claimBatch("worker-2", 10, Duration.ofSeconds(-1));
+
+        //then
+        assertEquals(1, reclaimed.size());
+        assertEquals("worker-2", reclaimed.get(0).getClaimedBy());
+    }
+
+    @Test
+    public void concurrentWorkersNeverClaimTwice() throws Exception {
+        //given
+        int memberCount = 300;
+        int workers = 6;
+        memberRepository.saveAll(IntStream.rangeClosed(1, memberCount)
+                .mapToObj(i -> new Member("member" + i, i))
+                .collect(Collectors.toList()));
+
+        ConcurrentLinkedQueue<Long> claimedIds = new ConcurrentLinkedQueue<>();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                String workerId = "worker-" + w;
+                futures.add(executor.submit(() -> {
+                    while (true) {
+                        List<Member> batch;
+                        try {
+                            batch = memberRepository.claimBatch(workerId, 7, LEASE);
+                        } catch (ConcurrencyFailureException e) {
+                            //락 대기 시간 초과 또는 버전 충돌 - 다시 선점한다.
+                            conflicts.incrementAndGet();
+                            continue;
+                        }
+                        if (batch.isEmpty()) {
+                            return;
+                        }
+                        batch.forEach(member -> claimedIds.add(member.getId()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //then
+        System.out.println("conflicts = " + conflicts.get());
+        assertEquals(memberCount, claimedIds.size());
+        assertEquals(memberCount, new HashSet<>(claimedIds).size());
+        assertEquals(memberCount, memberRepository.findAll().stream()
+                .filter(member -> member.getClaimedBy() != null)
+                .count());
+    }
+}
@@ -0,0 +1,141 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import study.datajpa.config.P6spy.SqlCaptureListener;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 트랜잭션이 없을 때의 병렬 청크 실행을 확인해야 하므로 @Transactional 을 사용하지 않고, 데이터는 직접 정리한다.
+ */
+@SpringBootTest
+class MemberFindByNamesTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    InListQuerySupport inListQuerySupport;
+    @Autowired
+    SqlCaptureListener sqlCaptureListener;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        memberRepository.saveAll(IntStream.rangeClosed(1, 5)
+                .mapToObj(i -> new Member("member" + i, i))
+                .collect(Collectors.toList()));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void inClauseParameterPadding() throws Exception {
+        //when
+        List<String> statements = sqlCaptureListener.capture(
+                () -> memberRepository.findByNames(Arrays.asList("member1", "member2", "member3")));
+
+        //then - 파라미터 3개는 4개로 패딩되고, 마지막 값이 반복된다.
+        assertEquals(1, statements.size());
+        assertEquals(2, StringUtils.countOccurrencesOf(statements.get(0), "'member3'"));
+    }
+
+    @Test
+    public void emptyAndDuplicateNames() throws Exception {
+        assertThat(memberRepository.findByNames(new ArrayList<>())).isEmpty();
+        assertThat(memberRepository.findByNames(Arrays.asList("member1", "member1", "member2")))
+                .extracting("username").containsExactlyInAnyOrder("member1", "member2");
+    }
+
+    @Test
+    public void chunkedInParallel() throws Exception {
+        //given
+        List<String> names = names(inListQuerySupport.getChunkSize() * 2 + 1);
+
+        //when
+        List<Member> result = memberRepository.findByNames(names);
+
+        //then
+        assertThat(result).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3", "member4", "member5");
+    }
+
+    @Test
+    public void chunkedInTransaction() throws Exception {
+        //given
+        List<String> names = names(inListQuerySupport.getChunkSize() * 2 + 1);
+
+        //when
+        List<String> statements = new ArrayList<>();
+        List<Member> result = new TransactionTemplate(transactionManager).execute(status -> {
+            statements.addAll(sqlCaptureListener.capture(() -> memberRepository.findByNames(names)));
+            return memberRepository.findByNames(names);
+        });
+
+        //then - 트랜잭션 안에서는 호출한 스레드에서 청크를 순서대로 실행한다.
+        assertEquals(3, statements.size());
+        assertEquals(5, result.size());
+    }
+
+    @Test
+    public void temporaryTableJoin() throws Exception {
+        //given
+        List<String> names = names(inListQuerySupport.getTempTableThreshold() + 1);
+
+        //when
+        List<Member> first = memberRepository.findByNames(names);
+        List<Member> second = memberRepository.findByNames(names);
+
+        //then - 커넥션에 남은 임시 테이블을 다시 사용해도 결과가 같다.
+        assertThat(first).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3", "member4", "member5");
+        assertEquals(5, second.size());
+    }
+
+    @Test
+    public void temporaryTableNotUsedInReadOnlyTransaction() throws Exception {
+        //given
+        List<String> names = names(inListQuerySupport.getTempTableThreshold() + 1);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        //when
+        List<String> statements = new ArrayList<>();
+        List<Member> result = readOnly.execute(status -> {
+            List<Member> members = new ArrayList<>();
+            statements.addAll(sqlCaptureListener.capture(() -> members.addAll(memberRepository.findByNames(names))));
+            return members;
+        });
+
+        //then - 임시 테이블에 쓰지 않고 청크로 나누어 조회한다.
+        assertThat(statements).noneMatch(sql -> sql.contains("tmp_member_names"));
+        assertEquals(5, result.size());
+    }
+
+    /**
+     * member1 ~ member5 와 존재하지 않는 이름으로 size 개의 이름을 만든다.
+     */
+    private static List<String> names(int size) {
+        return IntStream.rangeClosed(1, size)
+                .mapToObj(i -> i <= 5 ? "member" + i : "missing" + i)
+                .collect(Collectors.toList());
+    }
+}
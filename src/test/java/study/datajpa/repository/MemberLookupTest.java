@@ -0,0 +1,179 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.P6spy.SqlCaptureListener;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 스레드마다 트랜잭션 없이 조회해야 하므로 @Transactional 을 사용하지 않고, 데이터는 직접 정리한다.
+ */
+@SpringBootTest
+class MemberLookupTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberLookup memberLookup;
+    @Autowired
+    SqlCaptureListener sqlCaptureListener;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Long id;
+
+    @BeforeEach
+    void setUp() {
+        id = memberRepository.save(new Member("member1", 10)).getId();
+        emf.getCache().evictAll();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void concurrentLookupsShareOneQuery() throws Exception {
+        //given
+        SingleFlight<Long, Optional<Member>> singleFlight = new SingleFlight<>();
+        List<String> statements = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when - leader 는 나머지 호출이 모두 합류할 때까지 결과를 반환하지 않는다.
+        List<Optional<Member>> results = runConcurrently(start, () -> singleFlight.execute(id, () -> {
+            AtomicReference<Optional<Member>> loaded = new AtomicReference<>();
+            statements.addAll(sqlCaptureListener.capture(() -> loaded.set(memberRepository.findById(id))));
+            awaitCoalesced(singleFlight, THREADS - 1);
+            return loaded.get();
+        }));
+
+        //then
+        assertEquals(1, statements.size());
+        assertThat(results).allSatisfy(member -> assertEquals("member1", member.get().getUsername()));
+        assertThat(results.stream().map(Optional::get).distinct()).hasSize(1);
+
+        SingleFlight.Report report = singleFlight.report();
+        assertEquals(THREADS, report.getCalls());
+        assertEquals(1, report.getExecutions());
+        assertEquals(THREADS - 1, report.getCoalesced());
+    }
+
+    @Test
+    public void failureSharedWithWaiters() throws Exception {
+        //given
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<String>> futures = submit(start, () -> singleFlight.execute(id, () -> {
+            awaitCoalesced(singleFlight, THREADS - 1);
+            throw new IllegalStateException("lookup failed");
+        }));
+
+        //then - 함께 기다린 호출도 같은 예외를 받고, 이후 호출은 다시 실행된다.
+        for (Future<String> future : futures) {
+            Throwable cause = catchThrowable(future::get).getCause();
+            assertThat(cause).isInstanceOf(IllegalStateException.class).hasMessage("lookup failed");
+        }
+        assertEquals("retry", singleFlight.execute(id, () -> "retry"));
+        assertEquals(2, singleFlight.report().getExecutions());
+    }
+
+    @Test
+    public void memberLookup() throws Exception {
+        //given
+        memberLookup.reset();
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Member> byId = runConcurrently(start, () -> memberLookup.findById(id).get());
+        Member byUsername = memberLookup.findMemberByUsername("member1");
+
+        //then - 동시에 실행된 정도에 따라 합쳐진 수는 달라지지만, 모든 호출이 집계된다.
+        assertThat(byId).extracting("username").containsOnly("member1");
+        assertEquals("member1", byUsername.getUsername());
+        SingleFlight.Report report = (SingleFlight.Report) memberLookup.report().get("findById");
+        assertEquals(THREADS, report.getCalls());
+        assertEquals(THREADS, report.getExecutions() + report.getCoalesced());
+        assertNull(memberLookup.findMemberByUsername("unknown"));
+    }
+
+    @Test
+    public void bypassInTransaction() throws Exception {
+        //given
+        memberLookup.reset();
+
+        //when
+        Member member = new TransactionTemplate(transactionManager).execute(status -> {
+            Member found = memberLookup.findById(id).get();
+            found.setAge(20);
+            return found;
+        });
+
+        //then - 트랜잭션 안에서는 영속 상태의 엔티티를 받으므로 변경 감지가 동작한다.
+        assertEquals(20, memberRepository.findById(id).get().getAge());
+        assertEquals(1L, memberLookup.report().get("bypassed"));
+        assertEquals(20, member.getAge());
+    }
+
+    private <T> List<T> runConcurrently(CountDownLatch start, Callable<T> task) throws Exception {
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : submit(start, task)) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private <T> List<Future<T>> submit(CountDownLatch start, Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<T> future : futures) {
+                catchThrowable(() -> future.get(10, TimeUnit.SECONDS));
+            }
+            return futures;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitCoalesced(SingleFlight<?, ?> singleFlight, long expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.report().getCoalesced() < expected && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
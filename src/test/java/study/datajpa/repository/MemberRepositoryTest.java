@@ -1,18 +1,26 @@
 package study.datajpa.repository;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.P6spy.JdbcStatementCounter;
+import study.datajpa.config.P6spy.SqlCaptureListener;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +35,12 @@ class MemberRepositoryTest {
     TeamRepository teamRepository;
     @Autowired
     EntityManager em;
+    @Autowired
+    JdbcStatementCounter statementCounter;
+    @Autowired
+    SqlCaptureListener sqlCaptureListener;
+    @Autowired
+    InListQuerySupport inListQuerySupport;
 
     @Test
     public void testMember() throws Exception {
@@ -75,6 +89,31 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void saveAllBatchInsert() throws Exception {
+        //given
+        int memberCount = 10_000;
+        int batchSize = 100; //hibernate.jdbc.batch_size
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        statementCounter.reset();
+
+        //when
+        memberRepository.saveAll(members);
+        em.flush();
+
+        //then
+        /**
+         * 시퀀스(pooled-lo) 전략이면 persist 시점에 INSERT 가 나가지 않고, flush 시점에 batch_size 단위로 묶여서 실행된다.
+         * IDENTITY 전략이면 batchedStatements = 0, executions = 10,000 이 된다.
+         */
+        assertEquals(memberCount, statementCounter.getBatchedStatements());
+        assertEquals(memberCount / batchSize, statementCounter.getBatchExecutions());
+        assertEquals(memberCount, memberRepository.count());
+    }
+
     @Test
     public void findByUsernameAndGraterHen() throws Exception {
         //given
@@ -227,6 +266,107 @@ class MemberRepositoryTest {
         assertEquals(totalPageCount, page.getTotalPages());
     }
 
+    @Test
+    public void pagingCountStrategy() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member("member3", 10));
+
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.Direction.DESC, "username");
+
+        //when
+        Page<Member> exact = memberRepository.findByAge(10, pageRequest, CountStrategy.EXACT);
+        Page<Member> cached = memberRepository.findByAge(10, pageRequest, CountStrategy.CACHED);
+
+        //member 테이블에 INSERT 가 실행되면 캐시된 count 는 무효화된다.
+        memberRepository.save(new Member("member4", 10));
+        em.flush();
+        Page<Member> afterInsert = memberRepository.findByAge(10, pageRequest, CountStrategy.CACHED);
+
+        //then
+        assertThat(exact.getContent()).extracting("username").containsExactly("member3", "member2");
+        assertEquals(3, exact.getTotalElements());
+        assertEquals(3, cached.getTotalElements());
+        assertEquals(4, afterInsert.getTotalElements());
+    }
+
+    @Test
+    public void memberDtoPage() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        teamRepository.save(teamA);
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 20, teamA));
+        memberRepository.save(new Member("member3", 30));
+
+        em.flush();
+        em.clear();
+
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.Direction.DESC, "username");
+
+        //when
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(pageRequest, CountStrategy.EXACT);
+
+        //then
+        assertThat(page.getContent()).extracting("username").containsExactly("member3", "member2");
+        assertThat(page.getContent()).extracting("teamName").containsExactly(null, "teamA");
+        assertEquals(3, page.getTotalElements());
+        //DTO 로 조회했으므로 영속성 컨텍스트에 엔티티가 없다.
+        assertEquals(0, em.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    public void keysetPaging() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 30));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member("member3", 20));
+        memberRepository.save(new Member("member4", 10));
+        memberRepository.save(new Member("member5", 40));
+
+        int size = 2;
+
+        //when
+        CursorPage<Member> first = memberRepository.findByCursor(null, size);
+        CursorPage<Member> second = memberRepository.findByCursor(MemberCursor.decode(first.getNext()), size);
+        CursorPage<Member> last = memberRepository.findByCursor(MemberCursor.decode(second.getNext()), size);
+        CursorPage<Member> back = memberRepository.findByCursor(MemberCursor.decode(last.getPrevious()), size);
+
+        //then
+        //(age, id) 오름차순
+        assertThat(first.getContent()).extracting("username").containsExactly("member2", "member4");
+        assertNull(first.getPrevious());
+        assertThat(second.getContent()).extracting("username").containsExactly("member3", "member1");
+        assertThat(last.getContent()).extracting("username").containsExactly("member5");
+        assertNull(last.getNext());
+        assertThat(back.getContent()).extracting("username").containsExactly("member3", "member1");
+        assertNotNull(back.getPrevious());
+    }
+
+    @Test
+    public void streamAll() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 20));
+        memberRepository.save(new Member("member3", 30));
+        em.flush();
+        em.clear();
+
+        //when
+        long count = 0;
+        try (Stream<Member> members = memberRepository.streamAll(2)) {
+            for (Member member : (Iterable<Member>) members::iterator) {
+                memberRepository.detach(member);
+                assertFalse(em.contains(member));
+                count++;
+            }
+        }
+
+        //then
+        assertEquals(3, count);
+    }
+
     @Test
     public void bulkUpdate() throws Exception {
         //given
@@ -445,4 +585,116 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void nativeQueryProjectionCardinality() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("m1", 0, teamA));
+        em.persist(new Member("m2", 0, teamA));
+        em.persist(new Member("m3", 0, teamB));
+        em.persist(new Member("m4", 0, teamB));
+        em.persist(new Member("m5", 0));
+
+        em.flush();
+        em.clear();
+
+        //when
+        List<MemberProjection> offsetRows = new ArrayList<>();
+        Page<MemberProjection> page = memberRepository.findByNativeProjection(PageRequest.of(0, 2, Sort.by("member_id")));
+        offsetRows.addAll(page.getContent());
+        while (page.hasNext()) {
+            assertEquals(5, page.getTotalElements());
+            page = memberRepository.findByNativeProjection(page.nextPageable());
+            offsetRows.addAll(page.getContent());
+        }
+
+        List<MemberProjection> keysetRows = new ArrayList<>();
+        List<MemberProjection> slice = memberRepository.findByNativeProjectionAfter(0L, 2);
+        while (!slice.isEmpty()) {
+            keysetRows.addAll(slice);
+            slice = memberRepository.findByNativeProjectionAfter(slice.get(slice.size() - 1).getId(), 2);
+        }
+
+        //then
+        assertCardinality(offsetRows);
+        assertCardinality(keysetRows);
+        assertThat(keysetRows).extracting("teamName").containsExactly("teamA", "teamA", "teamB", "teamB", null);
+    }
+
+    @Test
+    public void unsupportedSortProperty() throws Exception {
+        //given
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by("bogus"));
+
+        //when then - JPQL 파서 오류 대신 정렬 속성 검증에서 실패한다.
+        assertThatThrownBy(() -> memberRepository.findAll(pageRequest, CountStrategy.EXACT))
+                .hasMessageContaining("unsupported sort property: bogus");
+        assertThatThrownBy(() -> memberRepository.findByAge(10, pageRequest, CountStrategy.EXACT))
+                .hasMessageContaining("unsupported sort property: bogus");
+    }
+
+    @Test
+    public void findAllByIdInOrder() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        int batchSize = inListQuerySupport.getMultiLoadBatchSize();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < batchSize * 2; i++) {
+            Member member = new Member("member" + i, i, i % 2 == 0 ? teamA : teamB);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+
+        Collections.reverse(ids);
+        Long missingId = ids.get(0) + 1000;
+        ids.add(1, missingId);
+        Member managed = memberRepository.findById(ids.get(0)).get();
+
+        //when
+        List<Member> result = new ArrayList<>();
+        List<String> statements = sqlCaptureListener.capture(() -> {
+            result.addAll(memberRepository.findAllByIdInOrder(ids));
+            result.forEach(m -> {
+                if (m != null) {
+                    m.getTeam().getName();
+                }
+            });
+        });
+
+        //then - 영속성 컨텍스트에 있는 회원을 뺀 나머지(없는 id 포함 batchSize * 2 건)를 batchSize 단위로 조회하고,
+        //       team 은 추가 쿼리 없이 함께 조회된다.
+        assertEquals(ids.size(), result.size());
+        assertSame(managed, result.get(0));
+        assertNull(result.get(1));
+        for (int i = 2; i < ids.size(); i++) {
+            assertEquals(ids.get(i), result.get(i).getId());
+        }
+        assertEquals(2, statements.size());
+        assertThat(statements).allSatisfy(sql -> assertThat(sql.toLowerCase()).contains("team"));
+    }
+
+    @Test
+    public void findAllByIdInOrderRejectsNullId() throws Exception {
+        //when then - multiLoad 까지 가지 않고 실패한다.
+        assertThatThrownBy(() -> memberRepository.findAllByIdInOrder(Arrays.asList(1L, null, 2L)))
+                .hasMessageContaining("ids must not contain null");
+    }
+
+    /**
+     * 네이티브 쿼리 결과 건수 검증 - 조인으로 행이 늘어나거나(카테시안 곱) 빠지지 않고 member 행과 1:1 이어야 한다.
+     */
+    private void assertCardinality(List<MemberProjection> rows) {
+        assertEquals(memberRepository.count(), rows.size());
+        assertThat(rows).extracting("id").doesNotHaveDuplicates();
+    }
+
 }
\ No newline at end of file
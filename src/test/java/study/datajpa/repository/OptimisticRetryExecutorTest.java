@@ -0,0 +1,122 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 스레드마다 별도 트랜잭션으로 같은 행을 변경하므로 @Transactional 을 사용하지 않고, 데이터는 직접 정리한다.
+ */
+@SpringBootTest
+class OptimisticRetryExecutorTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    OptimisticRetryExecutor retryExecutor;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void staleVersionConflict() throws Exception {
+        //given
+        Long id = memberRepository.save(new Member("member1", 10)).getId();
+        Member stale = memberRepository.findById(id).get();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> memberRepository.findById(id).get().setAge(20));
+
+        //when
+        stale.setAge(30);
+
+        //then
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> memberRepository.save(stale));
+        Member member = memberRepository.findById(id).get();
+        assertEquals(20, member.getAge());
+        assertEquals(1L, member.getVersion());
+    }
+
+    @Test
+    public void changeTeamDoesNotBumpTeamVersion() throws Exception {
+        //given
+        Long teamId = teamRepository.save(new Team("teamA")).getId();
+        Long memberId = memberRepository.save(new Member("member1", 10)).getId();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        //when
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.findById(memberId).get().changeTeam(teamRepository.findById(teamId).get()));
+
+        //then
+        assertEquals(0L, teamRepository.findById(teamId).get().getVersion());
+        assertEquals(1L, memberRepository.findById(memberId).get().getVersion());
+    }
+
+    @Test
+    public void concurrentIncrementsWithRetry() throws Exception {
+        //given
+        Long id = memberRepository.save(new Member("member1", 0)).getId();
+        int threads = 8;
+        int incrementsPerThread = 20;
+        retryExecutor.reset();
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < incrementsPerThread; j++) {
+                        retryExecutor.execute(() -> {
+                            Member member = memberRepository.findById(id).get();
+                            member.setAge(member.getAge() + 1);
+                            return member;
+                        }, 100);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //then
+        OptimisticRetryExecutor.Report report = retryExecutor.report();
+        assertEquals(threads * incrementsPerThread, memberRepository.findById(id).get().getAge());
+        assertEquals(threads * incrementsPerThread, report.getExecutions());
+        assertEquals(report.getExecutions() + report.getConflicts(), report.getAttempts());
+        assertThat(report.getExhausted()).isZero();
+    }
+
+    @Test
+    public void retryInsideTransactionIsRejected() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(
+                status -> retryExecutor.execute(() -> null)));
+    }
+}
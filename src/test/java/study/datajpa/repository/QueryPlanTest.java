@@ -0,0 +1,117 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.P6spy.SqlCaptureListener;
+import study.datajpa.dto.ChangeWatermark;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 조건이 있는 MemberRepository 쿼리의 실행 계획 회귀 테스트
+ *
+ * 쿼리 메소드를 실행하면서 바인드 값이 채워진 SQL 을 모으고, H2 EXPLAIN 결과에 전체 스캔(tableScan)이 있으면 실패한다.
+ * 조건 없이 전체를 읽는 쿼리(findAll, findMemberFetchJoin, findUsernameList 등)는 전체 스캔이 의도된 것이므로 검사하지 않는다.
+ */
+@SpringBootTest
+@Transactional
+class QueryPlanTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    SqlCaptureListener sqlCaptureListener;
+
+    @BeforeEach
+    void setUp() {
+        Team team = new Team("teamA");
+        teamRepository.save(team);
+        for (int i = 0; i < 100; i++) {
+            memberRepository.save(new Member("member" + i, i % 10, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void usernameQueries() throws Exception {
+        assertNoTableScan("findByUsername", () -> memberRepository.findByUsername("member1"));
+        assertNoTableScan("findListByUsername", () -> memberRepository.findListByUsername("member1"));
+        assertNoTableScan("findMemberByUsername", () -> memberRepository.findMemberByUsername("member1"));
+        assertNoTableScan("findOptionalByUsername", () -> memberRepository.findOptionalByUsername("member1"));
+        assertNoTableScan("findReadOnlyByUsername", () -> memberRepository.findReadOnlyByUsername("member1"));
+        assertNoTableScan("findLockByUsername", () -> memberRepository.findLockByUsername("member1"));
+        assertNoTableScan("findByUsernameAndAgeGreaterThan", () -> memberRepository.findByUsernameAndAgeGreaterThan("member1", 0));
+        assertNoTableScan("findUser", () -> memberRepository.findUser("member1", 1));
+        assertNoTableScan("findByNames", () -> memberRepository.findByNames(Arrays.asList("member1", "member2")));
+        assertNoTableScan("findProjectionByUsername", () -> memberRepository.findProjectionByUsername("member1", UsernameOnly.class));
+        assertNoTableScan("findByNativeQuery", () -> memberRepository.findByNativeQuery("member1"));
+    }
+
+    @Test
+    public void ageQueries() throws Exception {
+        PageRequest pageRequest = PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "username"));
+        Member member = memberRepository.findByUsername("member15").get(0);
+
+        assertNoTableScan("findByAge", () -> memberRepository.findByAge(5, pageRequest));
+        assertNoTableScan("findByAge(CountStrategy)", () -> memberRepository.findByAge(5, pageRequest, CountStrategy.EXACT));
+        assertNoTableScan("findByCursor(after)", () -> memberRepository.findByCursor(MemberCursor.after(member), 5));
+        assertNoTableScan("findByCursor(before)", () -> memberRepository.findByCursor(MemberCursor.before(member), 5));
+    }
+
+    @Test
+    public void idRangeQueries() throws Exception {
+        assertNoTableScan("findMinId", () -> memberRepository.findMinId());
+        assertNoTableScan("findMaxId", () -> memberRepository.findMaxId());
+        assertNoTableScan("findByNativeProjectionAfter", () -> memberRepository.findByNativeProjectionAfter(0L, 10));
+        assertNoTableScan("findVersionById", () -> memberRepository.findVersionById(1L));
+    }
+
+    @Test
+    public void changeFeedQueries() throws Exception {
+        assertNoTableScan("findChangesSince", () -> memberRepository.findChangesSince(ChangeWatermark.INITIAL, 10));
+    }
+
+    @Test
+    public void claimQueries() throws Exception {
+        //size 가 후보보다 크면 만료된 선점과 선점되지 않은 회원을 찾는 쿼리가 모두 실행된다.
+        assertNoTableScan("claimBatch(unclaimed)", () -> memberRepository.claimBatch("worker-1", 10, Duration.ofMinutes(1)));
+        assertNoTableScan("claimBatch(expired)", () -> memberRepository.claimBatch("worker-2", 200, Duration.ofSeconds(-1)));
+    }
+
+    private void assertNoTableScan(String name, Runnable query) {
+        em.clear();
+        List<String> statements = sqlCaptureListener.capture(query);
+        assertThat(statements).as("%s did not execute any SQL", name).isNotEmpty();
+
+        for (String sql : statements) {
+            if (!sql.trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+                continue;
+            }
+            String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+            assertThat(plan).as("%s falls back to a full table scan%n%s", name, plan)
+                    .doesNotContainIgnoringCase("tableScan");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package study.datajpa.repository;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.controller.MemberController;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 트랜잭션 경계를 직접 확인해야 하므로 @Transactional 을 사용하지 않고, 데이터는 직접 정리한다.
+ */
+@SpringBootTest
+class ReadOnlyQueryTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void readOnlyQueryAttribute() throws Exception {
+        //given
+        AnnotationTransactionAttributeSource source = new AnnotationTransactionAttributeSource();
+
+        //when
+        TransactionAttribute attribute = source.getTransactionAttribute(
+                MemberController.class.getMethod("dtoList", Pageable.class, CountStrategy.class), MemberController.class);
+
+        //then
+        assertNotNull(attribute);
+        assertTrue(attribute.isReadOnly());
+    }
+
+    @Test
+    public void readOnlySessionSkipsDirtyChecking() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        TransactionAttribute attribute = new AnnotationTransactionAttributeSource().getTransactionAttribute(
+                MemberController.class.getMethod("dtoList", Pageable.class, CountStrategy.class), MemberController.class);
+
+        //when
+        FlushMode flushMode = new TransactionTemplate(transactionManager, attribute).execute(status -> {
+            Member member = memberRepository.findListByUsername("member1").get(0);
+            member.setAge(20);
+            return em.unwrap(Session.class).getHibernateFlushMode();
+        });
+
+        //then
+        assertEquals(FlushMode.MANUAL, flushMode);
+        assertEquals(10, memberRepository.findListByUsername("member1").get(0).getAge());
+    }
+
+    @Test
+    public void modifyingQueryWithoutOuterTransaction() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+
+        //when
+        int resultCount = memberRepository.bulkAgePlus(10);
+
+        //then
+        assertEquals(1, resultCount);
+        assertEquals(11, memberRepository.findListByUsername("member1").get(0).getAge());
+    }
+}
@@ -0,0 +1,104 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 2차 캐시는 커밋 이후에 채워지므로 @Transactional 을 사용하지 않는다.
+ * 트랜잭션 없이 리포지토리를 호출하면 호출마다 새 영속성 컨텍스트가 사용된다.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void entityCache() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("teamA"));
+        statistics.clear();
+
+        //when
+        teamRepository.findById(team.getId()).get();
+        teamRepository.findById(team.getId()).get();
+
+        //then
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void findAllByIdInOrderLoadsTeamsOnce() throws Exception {
+        //given - 회원은 2차 캐시에 있고 팀은 없다.
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(memberRepository.save(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB)).getId());
+        }
+        emf.getCache().evict(Team.class);
+        statistics.clear();
+
+        //when
+        List<String> teamNames = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findAllByIdInOrder(ids).forEach(m -> teamNames.add(m.getTeam().getName())));
+
+        //then - 회원마다 팀을 지연 로딩하지 않고 한 번에 조회한다.
+        assertEquals(List.of("teamA", "teamB", "teamA", "teamB"), teamNames);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void queryCacheInvalidatedByBulkUpdate() throws Exception {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.findMemberByUsername("member1");
+        statistics.clear();
+
+        //when
+        Member cached = memberRepository.findMemberByUsername("member1");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> memberRepository.bulkAgePlus(10));
+        Member afterBulk = memberRepository.findMemberByUsername("member1");
+
+        //then
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(10, cached.getAge());
+        assertEquals(11, afterBulk.getAge());
+    }
+}
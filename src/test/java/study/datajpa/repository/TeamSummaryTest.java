@@ -0,0 +1,154 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.entity.TeamSummary;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 요약은 커밋 직전에 반영되므로 @Transactional 을 사용하지 않고, 데이터는 직접 정리한다.
+ */
+@SpringBootTest
+class TeamSummaryTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TeamSummaryRepository teamSummaryRepository;
+    @Autowired
+    TeamSummaryConsistencyCheck consistencyCheck;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        teamA = teamRepository.save(new Team("teamA"));
+        teamB = teamRepository.save(new Team("teamB"));
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = teamRepository.findById(teamA.getId()).get();
+            memberRepository.saveAll(Arrays.asList(
+                    new Member("m5", 5, team),
+                    new Member("m9", 9, team),
+                    new Member("m15", 15, team),
+                    new Member("m19", 19, team),
+                    new Member("m65", 65, team)));
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        jdbcTemplate.update("delete from team_summary");
+    }
+
+    @Test
+    public void insert() throws Exception {
+        assertSummary(teamA, 5, 2, 2, 0, 0, 0, 0, 1);
+        assertSummary(teamB, 0, 0, 0, 0, 0, 0, 0, 0);
+        assertNotNull(teamSummaryRepository.findById(teamA.getId()).get().getLastActivity());
+    }
+
+    @Test
+    public void changeTeamAndDelete() throws Exception {
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = memberRepository.findMemberByUsername("m15");
+            member.changeTeam(teamRepository.findById(teamB.getId()).get());
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.delete(memberRepository.findMemberByUsername("m65")));
+
+        //then
+        assertSummary(teamA, 3, 2, 1, 0, 0, 0, 0, 0);
+        assertSummary(teamB, 1, 0, 1, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void bulkAgePlus() throws Exception {
+        //when - 9 -> 10, 19 -> 20 은 구간이 바뀌고, 5 -> 6, 15 -> 16, 65 -> 66 은 그대로다.
+        memberRepository.bulkAgePlus(0);
+
+        //then
+        assertSummary(teamA, 5, 1, 2, 1, 0, 0, 0, 1);
+        assertThat(consistencyCheck.check().getMismatched()).doesNotContain(teamA.getId(), teamB.getId());
+    }
+
+    @Test
+    public void rollback() throws Exception {
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("m30", 30, teamRepository.findById(teamA.getId()).get()));
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertSummary(teamA, 5, 2, 2, 0, 0, 0, 0, 1);
+    }
+
+    @Test
+    public void activityDebounced() throws Exception {
+        //given
+        LocalDateTime inserted = teamSummaryRepository.findById(teamA.getId()).get().getLastActivity();
+
+        //when - 구간 안의 나이 변경은 변화량이 없으므로 activity-debounce-ms 안에서는 요약 행을 갱신하지 않는다.
+        transactionTemplate.executeWithoutResult(status -> memberRepository.findMemberByUsername("m5").setAge(6));
+
+        //then
+        assertEquals(inserted, teamSummaryRepository.findById(teamA.getId()).get().getLastActivity());
+
+        //when - 마지막 활동이 debounce 보다 오래되었으면 갱신한다.
+        LocalDateTime old = inserted.minusHours(1);
+        jdbcTemplate.update("update team_summary set last_activity = ? where team_id = ?", old, teamA.getId());
+        transactionTemplate.executeWithoutResult(status -> memberRepository.findMemberByUsername("m5").setAge(7));
+
+        //then
+        assertThat(teamSummaryRepository.findById(teamA.getId()).get().getLastActivity()).isAfter(old);
+        assertSummary(teamA, 5, 2, 2, 0, 0, 0, 0, 1);
+    }
+
+    @Test
+    public void consistencyCheckRepairs() throws Exception {
+        //given - 벌크 삭제는 요약에 반영되지 않는다.
+        assertThat(consistencyCheck.check().getMismatched()).doesNotContain(teamA.getId(), teamB.getId());
+        jdbcTemplate.update("delete from member where username = 'm65'");
+        jdbcTemplate.update("update team_summary set member_count = 100 where team_id = ?", teamB.getId());
+
+        //when
+        TeamSummaryConsistencyCheck.Report report = consistencyCheck.check();
+
+        //then
+        assertThat(report.getMismatched()).contains(teamA.getId(), teamB.getId());
+        assertTrue(report.isRepaired());
+        assertSummary(teamA, 4, 2, 2, 0, 0, 0, 0, 0);
+        assertSummary(teamB, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    private void assertSummary(Team team, long memberCount, long... buckets) {
+        TeamSummary summary = teamSummaryRepository.findById(team.getId()).get();
+        assertEquals(memberCount, summary.getMemberCount());
+        assertThat(summary.getAgeHistogram().values()).containsExactly(Arrays.stream(buckets).boxed().toArray(Long[]::new));
+    }
+}